@@ -6,17 +6,20 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.claw.ai.R;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import models.CachedSymbol;
+import utils.CachedSymbolDiffCallback;
 
 public class CachedSymbolSearchAdapter extends RecyclerView.Adapter<CachedSymbolSearchAdapter.CachedSymbolViewHolder> {
 
-    private List<CachedSymbol> symbols;
+    private final AsyncListDiffer<CachedSymbol> differ = new AsyncListDiffer<>(this, new CachedSymbolDiffCallback());
     private final OnSymbolClickListener listener;
 
     public interface OnSymbolClickListener {
@@ -24,8 +27,8 @@ public class CachedSymbolSearchAdapter extends RecyclerView.Adapter<CachedSymbol
     }
 
     public CachedSymbolSearchAdapter(List<CachedSymbol> symbols, OnSymbolClickListener listener) {
-        this.symbols = symbols;
         this.listener = listener;
+        if (symbols != null && !symbols.isEmpty()) differ.submitList(new ArrayList<>(symbols));
     }
 
     @NonNull
@@ -38,18 +41,18 @@ public class CachedSymbolSearchAdapter extends RecyclerView.Adapter<CachedSymbol
 
     @Override
     public void onBindViewHolder(@NonNull CachedSymbolViewHolder holder, int position) {
-        CachedSymbol symbol = symbols.get(position);
+        CachedSymbol symbol = differ.getCurrentList().get(position);
         holder.bind(symbol, listener);
     }
 
     @Override
     public int getItemCount() {
-        return Math.min(symbols.size(), 3 );
+        return Math.min(differ.getCurrentList().size(), 3 );
     }
 
     public void updateSymbols(List<CachedSymbol> newSymbols) {
-        this.symbols = newSymbols;
-        notifyDataSetChanged();
+        // Diffed on a background thread instead of rebinding every row
+        differ.submitList(newSymbols != null ? new ArrayList<>(newSymbols) : null);
     }
 
     public static class CachedSymbolViewHolder extends RecyclerView.ViewHolder {
@@ -8,7 +8,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.claw.ai.R;
@@ -20,11 +20,10 @@ import models.PatternAlert;
 import models.PriceAlert;
 import timber.log.Timber;
 import utils.PatternAlertsDiffCallback;
-import utils.PriceAlertsDiffCallback;
 
 public class PatternAlertsAdapter extends RecyclerView.Adapter<PatternAlertsAdapter.PatternAlertViewHolder> {
 
-    private List<PatternAlert> alerts = new ArrayList<>();
+    private final AsyncListDiffer<PatternAlert> differ = new AsyncListDiffer<>(this, new PatternAlertsDiffCallback());
     private final OnDeleteClickListener deleteClickListener;
 
     public interface OnDeleteClickListener {
@@ -44,26 +43,21 @@ public class PatternAlertsAdapter extends RecyclerView.Adapter<PatternAlertsAdap
 
     @Override
     public void onBindViewHolder(@NonNull PatternAlertViewHolder holder, int position) {
-        PatternAlert alert = alerts.get(position);
+        PatternAlert alert = differ.getCurrentList().get(position);
         holder.bind(alert, deleteClickListener);
     }
 
     @Override
     public int getItemCount() {
-        return alerts.size();
+        return differ.getCurrentList().size();
     }
 
     public void setAlerts(List<PatternAlert> newList) {
         if (newList == null) newList = new ArrayList<>();
-        if (this.alerts == null) this.alerts = newList;
 
         Timber.d("Updating adapter with %d symbols", newList.size());
-        List<PatternAlert> oldList = new ArrayList<>(this.alerts);
-
-        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new PatternAlertsDiffCallback(oldList, newList));
-        this.alerts.clear();
-        this.alerts.addAll(newList);
-        diffResult.dispatchUpdatesTo(this);
+        // Diffed on a background thread; copied so later changes to the caller's list don't leak in
+        differ.submitList(new ArrayList<>(newList));
     }
 
     public static class PatternAlertViewHolder extends RecyclerView.ViewHolder {
@@ -9,7 +9,7 @@ import android.widget.Button;
 import android.widget.FrameLayout;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.claw.ai.R;
@@ -18,13 +18,12 @@ import models.PriceAlert;
 import models.Symbol;
 import timber.log.Timber;
 import utils.PriceAlertsDiffCallback;
-import utils.SymbolDiffCallback;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class PriceAlertsAdapter extends RecyclerView.Adapter<PriceAlertsAdapter.ViewHolder> {
-    private List<PriceAlert> alerts = new ArrayList<>();
+    private final AsyncListDiffer<PriceAlert> differ = new AsyncListDiffer<>(this, new PriceAlertsDiffCallback());
     private final OnCancelClickListener cancelClickListener;
 
     public interface OnCancelClickListener {
@@ -37,15 +36,10 @@ public class PriceAlertsAdapter extends RecyclerView.Adapter<PriceAlertsAdapter.
 
     public void setAlerts(List<PriceAlert> newList) {
         if (newList == null) newList = new ArrayList<>();
-        if (this.alerts == null) this.alerts = newList;
 
         Timber.d("Updating adapter with %d symbols", newList.size());
-        List<PriceAlert> oldList = new ArrayList<>(this.alerts);
-
-        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new PriceAlertsDiffCallback(oldList, newList));
-        this.alerts.clear();
-        this.alerts.addAll(newList);
-        diffResult.dispatchUpdatesTo(this);
+        // Diffed on a background thread; copied so later changes to the caller's list don't leak in
+        differ.submitList(new ArrayList<>(newList));
     }
 
 
@@ -59,7 +53,7 @@ public class PriceAlertsAdapter extends RecyclerView.Adapter<PriceAlertsAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        PriceAlert alert = alerts.get(position);
+        PriceAlert alert = differ.getCurrentList().get(position);
         holder.symbolTextView.setText(alert.getSymbol());
         holder.conditionTextView.setText(
                 alert.getConditionType() + " " + alert.getConditionValue()
@@ -73,7 +67,7 @@ public class PriceAlertsAdapter extends RecyclerView.Adapter<PriceAlertsAdapter.
 
     @Override
     public int getItemCount() {
-        return alerts.size();
+        return differ.getCurrentList().size();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -8,19 +8,14 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
-import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.claw.ai.R;
 import com.claw.ai.databinding.SearchedSymbolItemBinding;
 import com.claw.ai.databinding.SymbolWatchlistItemBinding;
-import com.github.mikephil.charting.charts.LineChart;
-import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.components.YAxis;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.data.LineData;
-import com.github.mikephil.charting.data.LineDataSet;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,13 +30,16 @@ import utils.SymbolDiffCallback;
 
 /**
  * A RecyclerView adapter that displays cryptocurrency symbol data, including price information
- * and sparkline charts. Updates list items efficiently using DiffUtil.
+ * and sparklines drawn by the lightweight {@link views.SparklineView}. Lists are diffed on a
+ * background thread by an AsyncListDiffer, and price ticks rebind only the price views.
+ * Rows are never changed here: click listeners are set once per view holder and look the row
+ * up by position when clicked, and watchlist changes come back as a new list from the view model.
  */
 public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final int SEARCH_VIEW_TYPE = 0;
     private static final int WATCHLIST_VIEW_TYPE = 1;
     Context context;
-    private List<Symbol> symbolList;
+    private final AsyncListDiffer<Symbol> differ = new AsyncListDiffer<>(this, new SymbolDiffCallback());
     boolean isSearchAdapter;
     private final String userId;
     private final OnWatchlistActionListener listener;
@@ -51,7 +49,7 @@ public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                          String userId, OnWatchlistActionListener listener,
                          OnSymbolClickListener symbolClickListener) {
         this.context = context;
-        this.symbolList = symbolList;
+        if (symbolList != null && !symbolList.isEmpty()) differ.submitList(new ArrayList<>(symbolList));
         this.isSearchAdapter = isSearchAdapter;
         this.userId = userId;
         this.listener = listener;
@@ -60,15 +58,10 @@ public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
 
     public void setData(List<Symbol> newList) {
         if (newList == null) newList = new ArrayList<>();
-        if (this.symbolList == null) this.symbolList = newList;
 
         Timber.d("Updating adapter with %d symbols", newList.size());
-        List<Symbol> oldList = new ArrayList<>(this.symbolList);
-
-        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new SymbolDiffCallback(oldList, newList));
-        this.symbolList.clear();
-        this.symbolList.addAll(newList);
-        diffResult.dispatchUpdatesTo(this);
+        // Lists from the view model are never mutated after publishing, so they are submitted as is
+        differ.submitList(newList);
     }
 
     @Override
@@ -82,97 +75,89 @@ public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         LayoutInflater inflater = LayoutInflater.from(context);
         if (viewType == SEARCH_VIEW_TYPE) {
             SearchedSymbolItemBinding binding = SearchedSymbolItemBinding.inflate(inflater, parent, false);
-            return new SearchViewHolder(binding);
+            SearchViewHolder vh = new SearchViewHolder(binding);
+            binding.getRoot().setOnClickListener(v -> openSymbol(vh));
+
+            // The view model publishes the row with its new watchlist state, which rebinds the buttons
+            vh.addButton.setOnClickListener(v -> {
+                Symbol symbol = symbolAt(vh);
+                if (symbol != null && listener != null) {
+                    listener.onAddToWatchlist(userId, symbol, "Binance");
+                }
+            });
+            vh.removeButton.setOnClickListener(v -> {
+                Symbol symbol = symbolAt(vh);
+                if (symbol != null && listener != null) {
+                    listener.onRemoveFromWatchlist(userId, symbol.getSymbol());
+                }
+            });
+            return vh;
         } else {
             SymbolWatchlistItemBinding binding = SymbolWatchlistItemBinding.inflate(inflater, parent, false);
-            return new WatchlistViewHolder(binding);
+            WatchlistViewHolder vh = new WatchlistViewHolder(binding);
+            binding.getRoot().setOnClickListener(v -> openSymbol(vh));
+            return vh;
+        }
+    }
+
+    /**
+     * The row a holder shows right now, or null while it is being removed. Read at click time,
+     * since a payload-only rebind does not set the listeners again.
+     */
+    @Nullable
+    private Symbol symbolAt(RecyclerView.ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        List<Symbol> rows = differ.getCurrentList();
+        if (position == RecyclerView.NO_POSITION || position >= rows.size()) return null;
+        return rows.get(position);
+    }
+
+    private void openSymbol(RecyclerView.ViewHolder holder) {
+        Symbol symbol = symbolAt(holder);
+        if (symbol == null) return;
+        if (symbolClickListener != null) {
+            symbolClickListener.onSymbolClicked(symbol);
+        }
+        startSymbolDetail(symbol);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.contains(SymbolDiffCallback.PAYLOAD_PRICE)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        // Price-only change: leave the rest of the row (listeners, buttons, chart) untouched
+        Symbol symbol = differ.getCurrentList().get(position);
+        if (holder instanceof SearchViewHolder) {
+            bindSearchPrice((SearchViewHolder) holder, symbol);
+        } else if (holder instanceof WatchlistViewHolder) {
+            bindWatchlistPrice((WatchlistViewHolder) holder, symbol);
         }
     }
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        Symbol symbol = symbolList.get(position);
+        Symbol symbol = differ.getCurrentList().get(position);
 
         try {
             if (holder instanceof SearchViewHolder) {
                 SearchViewHolder vh = (SearchViewHolder) holder;
                 vh.binding.textViewSymbol.setText(symbol.getSymbol());
                 vh.binding.textViewName.setText(symbol.getAsset()); // Or getBaseCurrency(), depends on desired display
-                vh.binding.textViewPrice.setText(String.format(Locale.US, "US$%.2f", symbol.getCurrentPrice()));
-
-                boolean isNegative = symbol.get_24hChange() < 0;
-                int textColor = ContextCompat.getColor(context, isNegative ? R.color.crimson_red : R.color.green_chart_color);
-                vh.binding.percentagePriceChange.setTextColor(textColor);
-                vh.binding.percentagePriceChange.setText(String.format(Locale.US, "%.2f%%", symbol.get_24hChange()));
+                bindSearchPrice(vh, symbol);
 
                 vh.binding.addToWatchlist.setVisibility(symbol.isInWatchlist() ? View.GONE : View.VISIBLE);
                 vh.binding.removeFromWatchlist.setVisibility(symbol.isInWatchlist() ? View.VISIBLE : View.GONE);
 
-                vh.binding.getRoot().setOnClickListener(v -> {
-                    if (symbolClickListener != null) {
-                        symbolClickListener.onSymbolClicked(symbol);
-                    }
-                    startSymbolDetail(symbol);
-                });
-
-                vh.binding.addToWatchlist.setOnClickListener(v -> {
-                    // --- Optimistic UI Update ---
-                    symbol.setInWatchlist(true);
-                    // Use the non-deprecated method
-                    notifyItemChanged(holder.getBindingAdapterPosition());
-
-                    if (listener != null) {
-                        listener.onAddToWatchlist(userId, symbol, "Binance");
-                    }
-                });
-
-                vh.removeButton.setOnClickListener(v -> {
-                    // --- Optimistic UI Update ---
-                    symbol.setInWatchlist(false);
-                    // Use the non-deprecated method
-                    notifyItemChanged(holder.getBindingAdapterPosition());
-
-                    if (listener != null) {
-                        listener.onRemoveFromWatchlist(userId, symbol.getSymbol());
-                    }
-                });
-
             } else if (holder instanceof WatchlistViewHolder) {
                 WatchlistViewHolder vh = (WatchlistViewHolder) holder;
                 vh.binding.textViewSymbol.setText(symbol.getSymbol());
                 vh.binding.textViewName.setText(symbol.getAsset()); // Or getBaseCurrency()
-                vh.binding.textViewPrice.setText(String.format(Locale.US, "US$%.2f", symbol.getPrice()));
-
-                boolean isNegative = symbol.getChange() < 0;
-                int boxBackground = isNegative ? R.drawable.red_box : R.drawable.green_box;
-                vh.binding.changeBox.setBackgroundResource(boxBackground);
-                vh.binding.textViewChange.setText(String.format(Locale.US, "%.2f%%", symbol.getChange()));
-
-//                List<Double> sparklineData = symbol.getSparkline();
-//                if (sparklineData != null && !sparklineData.isEmpty()) {
-//                    vh.binding.lineChart.setVisibility(View.VISIBLE);
-//                    List<Entry> entries = new ArrayList<>();
-//                    for (int i = 0; i < sparklineData.size(); i++) {
-//                        if(sparklineData.get(i) != null) { // Check for null points in sparkline
-//                            entries.add(new Entry(i, sparklineData.get(i).floatValue()));
-//                        }
-//                    }
-//                    if (!entries.isEmpty()) { // Only setup chart if there are valid entries
-//                        setupChart(vh.binding.lineChart, entries);
-//                    } else {
-//                        vh.binding.lineChart.setVisibility(View.GONE);
-//                    }
-//                } else {
-//                    vh.binding.lineChart.setVisibility(View.GONE);
-//                }
-
-                // MODIFIED: Simplified click listener
-                vh.binding.getRoot().setOnClickListener(v -> {
-                    if (symbolClickListener != null) {
-                        symbolClickListener.onSymbolClicked(symbol);
-                    }
-                    startSymbolDetail(symbol);
-                });
+                bindWatchlistPrice(vh, symbol);
+
+                bindSparkline(vh, symbol);
 
                 // If watchlist items need a remove button, add it to XML and handle here:
                 // vh.binding.idOfRemoveButtonInWatchlistItem.setOnClickListener(v -> listener.onRemoveFromWatchlist(null, symbol.getSymbol()));
@@ -182,9 +167,30 @@ public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         }
     }
 
+    private void bindSearchPrice(SearchViewHolder vh, Symbol symbol) {
+        vh.binding.textViewPrice.setText(String.format(Locale.US, "US$%.2f", symbol.getCurrentPrice()));
+
+        boolean isNegative = symbol.get_24hChange() < 0;
+        int textColor = ContextCompat.getColor(context, isNegative ? R.color.crimson_red : R.color.green_chart_color);
+        vh.binding.percentagePriceChange.setTextColor(textColor);
+        vh.binding.percentagePriceChange.setText(String.format(Locale.US, "%.2f%%", symbol.get_24hChange()));
+    }
+
+    private void bindWatchlistPrice(WatchlistViewHolder vh, Symbol symbol) {
+        vh.binding.textViewPrice.setText(String.format(Locale.US, "US$%.2f", symbol.getPrice()));
+        if (vh.binding.sparkline.getVisibility() == View.VISIBLE && symbol.getPrice() > 0) {
+            vh.binding.sparkline.setLastPoint((float) symbol.getPrice());
+        }
+
+        boolean isNegative = symbol.getChange() < 0;
+        int boxBackground = isNegative ? R.drawable.red_box : R.drawable.green_box;
+        vh.binding.changeBox.setBackgroundResource(boxBackground);
+        vh.binding.textViewChange.setText(String.format(Locale.US, "%.2f%%", symbol.getChange()));
+    }
+
     @Override
     public int getItemCount() {
-        return symbolList != null ? symbolList.size() : 0;
+        return differ.getCurrentList().size();
     }
 
     // MODIFIED: Simplified this method to only pass the symbol's ticker.
@@ -219,39 +225,16 @@ public class SymbolAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         }
     }
 
-    private void setupChart(LineChart chart, List<Entry> dataPoints) {
-        if (dataPoints == null || dataPoints.isEmpty()) return;
-
-        boolean isDowntrend = dataPoints.get(dataPoints.size() - 1).getY() < dataPoints.get(0).getY();
-        int lineColor = isDowntrend ? android.graphics.Color.RED : android.graphics.Color.GREEN;
-        int shadeColor = isDowntrend ? R.drawable.chart_fill_red : R.drawable.chart_fill_green;
-
-        LineDataSet dataSet = new LineDataSet(dataPoints, "Price Trend");
-        dataSet.setColor(lineColor);
-        dataSet.setDrawCircles(false);
-        dataSet.setDrawValues(false);
-        dataSet.setLineWidth(2f);
-        dataSet.setDrawFilled(true);
-        dataSet.setFillDrawable(ContextCompat.getDrawable(chart.getContext(), shadeColor));
-
-        LineData lineData = new LineData(dataSet);
-        chart.setData(lineData);
-        chart.invalidate();
-
-        chart.getLegend().setEnabled(false);
-        chart.getDescription().setEnabled(false);
-        chart.setTouchEnabled(false);
-
-        XAxis xAxis = chart.getXAxis();
-        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-        xAxis.setDrawGridLines(false);
-        xAxis.setDrawLabels(false);
-
-        YAxis leftAxis = chart.getAxisLeft();
-        leftAxis.setDrawLabels(false);
-        leftAxis.setDrawGridLines(false);
-        leftAxis.setEnabled(false);
-
-        chart.getAxisRight().setEnabled(false);
+    private void bindSparkline(WatchlistViewHolder vh, Symbol symbol) {
+        float[] points = symbol.getSparklinePoints();
+        if (points == null || points.length < 2) {
+            vh.binding.sparkline.clear();
+            vh.binding.sparkline.setVisibility(View.GONE);
+            return;
+        }
+        vh.binding.sparkline.setVisibility(View.VISIBLE);
+        vh.binding.sparkline.setPoints(points);
+        // The last sample follows the live price until the next sparkline arrives
+        if (symbol.getPrice() > 0) vh.binding.sparkline.setLastPoint((float) symbol.getPrice());
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package backend;
 
 import androidx.annotation.Nullable;
 
+import com.google.gson.JsonElement;
+
 import java.util.List;
 
 import backend.requests.AddWatchlistRequest;
@@ -62,8 +64,17 @@ public interface ApiService {
     Call<List<Pattern>> getPatterns();
 
 
+    /**
+     * Pages through the symbol catalogue. Pass the last synced version as {@code since} to get
+     * only what changed after it, or null for the full catalogue. Older backends ignore the
+     * parameters and answer with a bare list of all symbols, so the body is parsed by the caller.
+     */
     @GET("cache/symbols")
-    Call<List<CachedSymbol>> getSymbols(); // This will no longer be used by SyncWorker
+    Call<JsonElement> getSymbolCatalogue(
+            @Query("since") @Nullable String sinceVersion,
+            @Query("page") int page,
+            @Query("page_size") int pageSize
+    );
 
     @GET("cache/symbols/search")
     Call<List<CachedSymbol>> searchSymbols(@Query("q") String query);
@@ -0,0 +1,42 @@
+// backend/CandleDao.java
+package backend;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Upsert;
+
+import java.util.List;
+
+import models.CachedCandle;
+import models.CandleHistoryStart;
+
+@Dao
+public interface CandleDao {
+    @Upsert
+    void upsertAll(List<CachedCandle> candles);
+
+    @Upsert
+    void upsert(CachedCandle candle);
+
+    /**
+     * Returns the stored bars of a series between two open times (inclusive), oldest first.
+     */
+    @Query("SELECT * FROM candles WHERE symbol = :symbol AND interval = :interval " +
+            "AND openTime BETWEEN :fromTime AND :toTime ORDER BY openTime ASC")
+    List<CachedCandle> getRange(String symbol, String interval, long fromTime, long toTime);
+
+    /**
+     * Open time of the earliest stored bar of a series, or null when nothing is stored.
+     */
+    @Query("SELECT MIN(openTime) FROM candles WHERE symbol = :symbol AND interval = :interval")
+    @Nullable
+    Long getFirstOpenTime(String symbol, String interval);
+
+    @Query("SELECT * FROM candle_history_start WHERE symbol = :symbol AND interval = :interval")
+    @Nullable
+    CandleHistoryStart getHistoryStart(String symbol, String interval);
+
+    @Upsert
+    void upsertHistoryStart(CandleHistoryStart start);
+}
@@ -0,0 +1,156 @@
+package backend;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.claw.ai.BuildConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Owns the app's single network stack.
+ *
+ * Every client in the app is either {@link #getClient()} or derived from it with
+ * {@code newBuilder()}, so REST calls, market/watchlist WebSockets and the analysis SSE stream
+ * share one connection pool, DNS cache and TLS session cache. Streams get a dispatcher of their
+ * own: an open stream holds its dispatcher slot, and every call goes to the same host, so on the
+ * shared one they would eat into the per-host limit of REST calls. The REST client also has an
+ * on-disk HTTP cache. Catalogue style endpoints that the backend does not mark as
+ * cacheable get a short max-age, so screens opened in quick succession reuse the response.
+ * Call timings are recorded by {@link NetworkTracer}; bodies are only logged in debug builds.
+ */
+public final class NetworkModule {
+
+    public static final String API_BASE_URL = "https://stable-wholly-crappie.ngrok-free.app/api/v1/";
+
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final int MAX_STREAMS = 16;
+
+    private static File cacheDir;
+    private static volatile OkHttpClient client;
+    private static volatile OkHttpClient streamingClient;
+
+    private NetworkModule() {
+    }
+
+    /**
+     * Called from {@code App.onCreate()} before any client is built, so the HTTP cache can live
+     * in the app's cache directory. Clients built without it simply have no disk cache.
+     */
+    public static void init(Context context) {
+        cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+    }
+
+    /**
+     * Shared client for request/response calls.
+     */
+    public static OkHttpClient getClient() {
+        if (client == null) {
+            synchronized (NetworkModule.class) {
+                if (client == null) {
+                    client = buildClient();
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Client for long-lived WebSocket and SSE connections: the shared pool and tracer with its
+     * own dispatcher, and without read timeouts, caching or body logging.
+     */
+    public static OkHttpClient getStreamingClient() {
+        if (streamingClient == null) {
+            synchronized (NetworkModule.class) {
+                if (streamingClient == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequests(MAX_STREAMS);
+                    dispatcher.setMaxRequestsPerHost(MAX_STREAMS);
+
+                    OkHttpClient.Builder builder = getClient().newBuilder()
+                            .dispatcher(dispatcher)
+                            .cache(null)
+                            .readTimeout(0, TimeUnit.MILLISECONDS) // No timeout for stream reads
+                            .writeTimeout(30, TimeUnit.SECONDS)
+                            .connectTimeout(30, TimeUnit.SECONDS)
+                            .pingInterval(30, TimeUnit.SECONDS);
+                    // Body logging would buffer streams that never end
+                    builder.interceptors().clear();
+                    builder.networkInterceptors().clear();
+                    streamingClient = builder.build();
+                }
+            }
+        }
+        return streamingClient;
+    }
+
+    private static OkHttpClient buildClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+                .eventListenerFactory(NetworkTracer.getInstance())
+                .addNetworkInterceptor(new CachePolicyInterceptor())
+                .connectTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS);
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir, CACHE_SIZE_BYTES));
+        }
+        if (BuildConfig.DEBUG) {
+            // Full bodies are buffered and stringified, so they are only logged in debug builds
+            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            builder.addInterceptor(logging);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gives cacheable GET endpoints a max-age when the backend sends no caching headers.
+     */
+    private static final class CachePolicyInterceptor implements Interceptor {
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            if (!"GET".equals(request.method()) || !response.isSuccessful()
+                    || response.header("Cache-Control") != null) {
+                return response;
+            }
+
+            long maxAgeSeconds = maxAgeFor(request.url().encodedPath());
+            if (maxAgeSeconds <= 0) return response;
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", "public, max-age=" + maxAgeSeconds)
+                    .build();
+        }
+
+        private static long maxAgeFor(String path) {
+            if (path.endsWith("/stripe/prices")) return TimeUnit.HOURS.toSeconds(1);
+            if (path.endsWith("/cache/symbols/search")) return TimeUnit.MINUTES.toSeconds(5);
+            if (path.endsWith("/cache/patterns")) return 60;
+            return 0;
+        }
+    }
+}
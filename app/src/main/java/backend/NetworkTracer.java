@@ -0,0 +1,229 @@
+package backend;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Records per-call network timings into a fixed-size ring buffer.
+ *
+ * Installed on the shared client as an {@link EventListener.Factory}. Each call gets a small
+ * listener that only stores {@link System#nanoTime()} stamps and byte counts. Nothing is
+ * formatted or logged on the network path, so it is cheap enough for release builds. The
+ * finished {@link Trace} replaces the oldest entry in the buffer. Use {@link #getRecent()}
+ * to inspect them (a debug screen, a bug report, a log dump).
+ */
+public final class NetworkTracer implements EventListener.Factory {
+
+    private static final int CAPACITY = 128;
+
+    private static final NetworkTracer INSTANCE = new NetworkTracer();
+
+    private final Trace[] traces = new Trace[CAPACITY];
+    private int next;
+    private int count;
+
+    public static NetworkTracer getInstance() {
+        return INSTANCE;
+    }
+
+    private NetworkTracer() {
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallListener(call);
+    }
+
+    /**
+     * Finished calls, oldest first.
+     */
+    public synchronized List<Trace> getRecent() {
+        List<Trace> recent = new ArrayList<>(count);
+        int start = (next - count + CAPACITY) % CAPACITY;
+        for (int i = 0; i < count; i++) {
+            recent.add(traces[(start + i) % CAPACITY]);
+        }
+        return recent;
+    }
+
+    public synchronized void clear() {
+        java.util.Arrays.fill(traces, null);
+        next = 0;
+        count = 0;
+    }
+
+    private synchronized void record(Trace trace) {
+        traces[next] = trace;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) count++;
+    }
+
+    /**
+     * Timings of one call, in milliseconds. Phases that did not happen (a pooled connection
+     * skips DNS, connect and TLS) are -1.
+     */
+    public static final class Trace {
+        public final String method;
+        public final String url;
+        public final int code;
+        public final boolean failed;
+        public final double dnsMs;
+        public final double connectMs;
+        public final double tlsMs;
+        public final double ttfbMs;
+        public final double totalMs;
+        public final long requestBodyBytes;
+        public final long responseBodyBytes;
+
+        Trace(String method, String url, int code, boolean failed, double dnsMs, double connectMs,
+              double tlsMs, double ttfbMs, double totalMs, long requestBodyBytes, long responseBodyBytes) {
+            this.method = method;
+            this.url = url;
+            this.code = code;
+            this.failed = failed;
+            this.dnsMs = dnsMs;
+            this.connectMs = connectMs;
+            this.tlsMs = tlsMs;
+            this.ttfbMs = ttfbMs;
+            this.totalMs = totalMs;
+            this.requestBodyBytes = requestBodyBytes;
+            this.responseBodyBytes = responseBodyBytes;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s %s -> %s | dns %.1f connect %.1f tls %.1f ttfb %.1f total %.1f ms | %d B up, %d B down",
+                    method, url, failed ? "failed" : String.valueOf(code),
+                    dnsMs, connectMs, tlsMs, ttfbMs, totalMs, requestBodyBytes, responseBodyBytes);
+        }
+    }
+
+    private final class CallListener extends EventListener {
+        private final Call call;
+        private long callStart;
+        private long dnsStart;
+        private long dnsEnd;
+        private long connectStart;
+        private long connectEnd;
+        private long tlsStart;
+        private long tlsEnd;
+        private long requestStart;
+        private long responseStart;
+        private long requestBodyBytes;
+        private long responseBodyBytes;
+        private int code = -1;
+
+        CallListener(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+            dnsEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            tlsStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+            tlsEnd = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                               @NonNull Proxy proxy, @Nullable Protocol protocol) {
+            connectEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            if (requestStart == 0) requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(@NonNull Call call, long byteCount) {
+            requestBodyBytes += byteCount;
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            if (responseStart == 0) responseStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            code = response.code();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            responseBodyBytes += byteCount;
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            finish(false);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            finish(true);
+        }
+
+        private void finish(boolean failed) {
+            long end = System.nanoTime();
+            record(new Trace(
+                    call.request().method(),
+                    call.request().url().host() + call.request().url().encodedPath(),
+                    code,
+                    failed,
+                    span(dnsStart, dnsEnd),
+                    span(connectStart, connectEnd),
+                    span(tlsStart, tlsEnd),
+                    span(requestStart, responseStart),
+                    span(callStart, end),
+                    requestBodyBytes,
+                    responseBodyBytes));
+        }
+
+        private double span(long start, long end) {
+            if (start == 0 || end == 0) return -1;
+            return (end - start) / 1_000_000.0;
+        }
+    }
+}
@@ -6,11 +6,17 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.TypeConverters;
+import androidx.room.Update;
 import androidx.room.Upsert;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import database.roomDB.SparklineConverter;
 import models.CachedSymbol;
+import models.CachedSymbolInfo;
 
 @Dao
 public interface SymbolDao {
@@ -21,10 +27,80 @@ public interface SymbolDao {
     @Query("SELECT * FROM symbols WHERE symbol LIKE :query")
     LiveData<List<CachedSymbol>> searchSymbols(String query);
 
+    /**
+     * Full-text search. Symbols whose ticker starts with the query rank first, then by 24h volume.
+     * @param match FTS4 MATCH expression, e.g. "btc*"
+     * @param prefix LIKE pattern for the ticker prefix, e.g. "btc%"
+     */
+    @Query("SELECT symbols.* FROM symbols JOIN symbols_fts ON symbols.rowid = symbols_fts.rowid " +
+            "WHERE symbols_fts MATCH :match " +
+            "ORDER BY (symbols.symbol LIKE :prefix) DESC, symbols._24hVolume DESC LIMIT :limit")
+    List<CachedSymbol> searchFts(String match, String prefix, int limit);
+
+    @Query("SELECT symbols.* FROM symbols JOIN symbols_fts ON symbols.rowid = symbols_fts.rowid " +
+            "WHERE symbols_fts MATCH :match " +
+            "ORDER BY (symbols.symbol LIKE :prefix) DESC, symbols._24hVolume DESC LIMIT :limit")
+    LiveData<List<CachedSymbol>> searchFtsLive(String match, String prefix, int limit);
+
+    // Substring match for queries the token index can't answer (e.g. "USDT" inside "BTCUSDT")
+    @Query("SELECT * FROM symbols WHERE symbol LIKE :pattern OR asset LIKE :pattern " +
+            "ORDER BY _24hVolume DESC LIMIT :limit")
+    List<CachedSymbol> searchInfix(String pattern, int limit);
+
     // NEW: Added function to get a single symbol by its ticker
     @Query("SELECT * FROM symbols WHERE symbol = :ticker LIMIT 1")
     CachedSymbol getSymbolByTicker(String ticker);
 
     @Query("SELECT * FROM symbols WHERE symbol IN (:tickers)")
     List<CachedSymbol> getSymbolsByTickersSync(List<String> tickers);
+
+    @Query("SELECT COUNT(*) FROM symbols")
+    int count();
+
+    // Write-through from the quote cache; rows not in the catalogue yet are left alone
+    @Query("UPDATE symbols SET price = :price, change = :change, currentPrice = :price, _24hChange = :change " +
+            "WHERE symbol = :ticker")
+    void updateQuote(String ticker, double price, double change);
+
+    @TypeConverters(SparklineConverter.class)
+    @Query("UPDATE symbols SET sparklinePoints = :points WHERE symbol = :ticker")
+    void updateSparkline(String ticker, float[] points);
+
+    @Query("DELETE FROM symbols WHERE symbol IN (:tickers)")
+    void deleteByTickers(List<String> tickers);
+
+    @Query("SELECT COALESCE(MAX(syncGeneration), 0) FROM symbols")
+    long maxSyncGeneration();
+
+    /**
+     * Deletes up to limit symbols not seen by the given full catalogue download and returns how
+     * many were deleted; called until it returns less than limit.
+     */
+    @Query("DELETE FROM symbols WHERE symbol IN " +
+            "(SELECT symbol FROM symbols WHERE syncGeneration < :generation LIMIT :limit)")
+    int deleteOlderGenerations(long generation, int limit);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertMissing(List<CachedSymbol> symbols);
+
+    @Update(entity = CachedSymbol.class)
+    void updateInfo(List<CachedSymbolInfo> info);
+
+    /**
+     * Applies one batch of a catalogue sync atomically. New symbols are inserted whole; known
+     * ones only get their catalogue columns, so prices and sparklines written by the streams are
+     * kept. Callers keep batches below SQLite's bound-variable limit.
+     */
+    @Transaction
+    default void applyCatalogueBatch(List<CachedSymbol> upserts, List<String> removed) {
+        if (!upserts.isEmpty()) {
+            insertMissing(upserts);
+            List<CachedSymbolInfo> info = new ArrayList<>(upserts.size());
+            for (CachedSymbol symbol : upserts) {
+                info.add(new CachedSymbolInfo(symbol));
+            }
+            updateInfo(info);
+        }
+        if (!removed.isEmpty()) deleteByTickers(removed);
+    }
 }
@@ -0,0 +1,86 @@
+package backend;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Upsert;
+
+import java.util.Collections;
+import java.util.List;
+
+import models.WatchlistEntry;
+import models.WatchlistOutboxOp;
+
+@Dao
+public interface WatchlistDao {
+    @Query("SELECT * FROM watchlist WHERE userId = :userId ORDER BY addedAt DESC")
+    List<WatchlistEntry> getEntries(String userId);
+
+    @Upsert
+    void upsertEntries(List<WatchlistEntry> entries);
+
+    @Query("DELETE FROM watchlist WHERE userId = :userId AND symbol IN (:symbols)")
+    void deleteEntries(String userId, List<String> symbols);
+
+    @Insert
+    void insertOp(WatchlistOutboxOp op);
+
+    @Query("SELECT * FROM watchlist_outbox ORDER BY id ASC LIMIT 1")
+    WatchlistOutboxOp nextOp();
+
+    @Query("DELETE FROM watchlist_outbox WHERE id = :id")
+    void deleteOp(long id);
+
+    @Query("SELECT DISTINCT symbol FROM watchlist_outbox WHERE userId = :userId")
+    List<String> getPendingSymbols(String userId);
+
+    @Query("SELECT COUNT(*) FROM watchlist_outbox WHERE userId = :userId AND symbol = :symbol AND id > :afterId")
+    int countLaterOps(String userId, String symbol, long afterId);
+
+    /**
+     * Drops an operation the backend refused. A refused add is also undone locally, unless a
+     * later queued operation changes the symbol again.
+     */
+    @Transaction
+    default void rejectOp(WatchlistOutboxOp op) {
+        deleteOp(op.id);
+        if (WatchlistOutboxOp.ADD.equals(op.op) && countLaterOps(op.userId, op.symbol, op.id) == 0) {
+            deleteEntries(op.userId, Collections.singletonList(op.symbol));
+        }
+    }
+
+    /**
+     * Adds a symbol locally and queues the add for the backend, atomically.
+     */
+    @Transaction
+    default void addLocally(WatchlistEntry entry, WatchlistOutboxOp op) {
+        upsertEntries(Collections.singletonList(entry));
+        insertOp(op);
+    }
+
+    /**
+     * Removes a symbol locally and queues the removal for the backend, atomically.
+     */
+    @Transaction
+    default void removeLocally(String userId, String symbol, WatchlistOutboxOp op) {
+        deleteEntries(userId, Collections.singletonList(symbol));
+        insertOp(op);
+    }
+
+    /**
+     * Brings the local watchlist in line with the backend's, writing only what differs.
+     * Symbols with queued changes keep their local state: the queue has not reached the backend
+     * yet, so its view of them is stale. Server entries are ordered by their position in the
+     * backend list (oldest first).
+     *
+     * @return the tickers added or removed by the backend since the last reconciliation
+     */
+    @Transaction
+    default List<String> reconcile(String userId, List<WatchlistEntry> serverEntries) {
+        WatchlistDiff diff = WatchlistDiff.compute(getEntries(userId), getPendingSymbols(userId), serverEntries);
+        if (!diff.upserts.isEmpty()) upsertEntries(diff.upserts);
+        if (!diff.removed.isEmpty()) deleteEntries(userId, diff.removed);
+        return diff.changed;
+    }
+}
@@ -0,0 +1,61 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import models.WatchlistEntry;
+
+/**
+ * What {@link WatchlistDao#reconcile} writes to bring the local watchlist in line with the
+ * backend's. Pure, so it can be worked out and tested without a database.
+ */
+final class WatchlistDiff {
+
+    // Entries to write, with addedAt set to their position in the backend list
+    final List<WatchlistEntry> upserts = new ArrayList<>();
+    final List<String> removed = new ArrayList<>();
+    // Tickers the backend added or removed, added ones first
+    final List<String> changed = new ArrayList<>();
+
+    private WatchlistDiff() {
+    }
+
+    /**
+     * @param local         the entries stored on device
+     * @param pending       tickers with queued changes; their local state is kept
+     * @param serverEntries the backend list, oldest first; not modified
+     */
+    static WatchlistDiff compute(List<WatchlistEntry> local, Collection<String> pending,
+                                 List<WatchlistEntry> serverEntries) {
+        Set<String> pendingSet = new HashSet<>(pending);
+        Map<String, WatchlistEntry> localBySymbol = new HashMap<>();
+        for (WatchlistEntry entry : local) {
+            localBySymbol.put(entry.symbol, entry);
+        }
+
+        WatchlistDiff diff = new WatchlistDiff();
+        Set<String> onServer = new HashSet<>();
+        for (int i = 0; i < serverEntries.size(); i++) {
+            WatchlistEntry entry = serverEntries.get(i);
+            onServer.add(entry.symbol);
+            if (pendingSet.contains(entry.symbol)) continue;
+
+            WatchlistEntry existing = localBySymbol.get(entry.symbol);
+            if (existing == null) diff.changed.add(entry.symbol);
+            if (existing == null || existing.addedAt != i) {
+                diff.upserts.add(new WatchlistEntry(entry.userId, entry.symbol, entry.asset, entry.baseCurrency, i));
+            }
+        }
+
+        for (String symbol : localBySymbol.keySet()) {
+            if (!onServer.contains(symbol) && !pendingSet.contains(symbol)) diff.removed.add(symbol);
+        }
+        diff.changed.addAll(diff.removed);
+        return diff;
+    }
+}
@@ -0,0 +1,55 @@
+package backend.results;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+import models.CachedSymbol;
+
+/**
+ * One page of the symbol catalogue. Without a {@code since} version this is a page of the full
+ * catalogue; with one it is a page of the changes made after that version.
+ */
+public class SymbolCatalogueResponse {
+    // Catalogue version this page belongs to; the next delta sync starts from it
+    private String version;
+    private int page;
+    @SerializedName("has_more")
+    private boolean hasMore;
+    // Set when the server can no longer produce a delta from the requested version
+    @SerializedName("full_resync")
+    private boolean fullResync;
+    private List<CachedSymbol> symbols;
+    // Tickers delisted since the requested version
+    private List<String> removed;
+
+    public SymbolCatalogueResponse() {}
+
+    /**
+     * Wraps the bare symbol list served by backends without catalogue versions: one unversioned
+     * page holding the whole catalogue.
+     */
+    public static SymbolCatalogueResponse ofFullList(@Nullable List<CachedSymbol> symbols) {
+        SymbolCatalogueResponse response = new SymbolCatalogueResponse();
+        response.page = 1;
+        response.symbols = symbols;
+        return response;
+    }
+
+    @Nullable
+    public String getVersion() { return version; }
+    public int getPage() { return page; }
+    public boolean hasMore() { return hasMore; }
+    public boolean isFullResync() { return fullResync; }
+
+    public List<CachedSymbol> getSymbols() {
+        return symbols != null ? symbols : Collections.emptyList();
+    }
+
+    public List<String> getRemoved() {
+        return removed != null ? removed : Collections.emptyList();
+    }
+}
@@ -13,6 +13,8 @@ import com.stripe.android.PaymentConfiguration;
 
 import backend.ApiService;
 import backend.MainClient;
+import backend.NetworkModule;
+import data.remote.MarketDataHub;
 import database.roomDB.AppDatabase;
 import repositories.SyncRepository;
 import settings.notifications.NotificationSettings;
@@ -24,6 +26,11 @@ public class App extends Application {
 
     public void onCreate() {
         super.onCreate();
+        // Must run before any API client is built so the HTTP cache is available
+        NetworkModule.init(this);
+        // Lets dropped market data sockets reconnect as soon as a network is back
+        MarketDataHub.init(this);
+
         // Retrieve the key from strings.xml
         String stripePublishableKey = getApplicationContext().getString(R.string.TEST_STRIPE_PUBLISHABLE_KEY);
 
@@ -119,6 +126,7 @@ public class App extends Application {
         ApiService apiService = MainClient.getApiService();
         SyncRepository syncRepository = new SyncRepository(this, database, apiService);
         syncRepository.startPeriodicSync();
+        syncRepository.syncNow();
     }
 
     /**
@@ -0,0 +1,477 @@
+// data/remote/MarketDataHub.java
+package data.remote;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import backend.NetworkModule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import timber.log.Timber;
+
+/**
+ * Process-wide owner of every market data socket.
+ *
+ * Screens no longer open their own WebSockets. Each stream (a market stream for a given
+ * symbol/interval, or a user's watchlist stream) is keyed by its channel, opened once on the
+ * shared client and reference counted. Every frame is fanned out to all current subscribers,
+ * and late subscribers get onOpen plus the most recent frame straight away instead of waiting
+ * for a new handshake. A subscriber sees every event once and in order: the replayed state is
+ * captured under the channel lock together with attaching, events arriving meanwhile wait for
+ * the replay, and onOpen is passed on once per socket. When the last subscriber leaves, the
+ * socket lingers briefly so that quick screen transitions (watchlist -> chart -> back,
+ * interval tab switches) reuse it.
+ *
+ * A socket that fails or is closed by the server while it still has subscribers is reopened
+ * with jittered exponential backoff. Subscribers see onFailure/onClosed and then onOpen again
+ * on the same subscription. When the system reports a default network, waiting channels
+ * reconnect at once, and on a switch to a different network all sockets are replaced, since
+ * the old ones may be dead without knowing it.
+ */
+public final class MarketDataHub {
+
+    private static final String WS_BASE_URL = "wss://stable-wholly-crappie.ngrok-free.app/api/v1/ws/";
+    private static final long LINGER_MS = 5000;
+    private static final long RECONNECT_BASE_MS = 1000;
+    private static final long RECONNECT_MAX_MS = 30_000;
+
+    private static volatile MarketDataHub instance;
+
+    private final OkHttpClient client;
+    private final Map<String, Channel> channels = new HashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public static MarketDataHub getInstance() {
+        if (instance == null) {
+            synchronized (MarketDataHub.class) {
+                if (instance == null) {
+                    instance = new MarketDataHub(NetworkModule.getStreamingClient());
+                }
+            }
+        }
+        return instance;
+    }
+
+    MarketDataHub(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Called from {@code App.onCreate()} to follow default network changes. Does not create the
+     * hub; network events are ignored until something subscribes.
+     */
+    public static void init(Context context) {
+        ConnectivityManager connectivityManager = context.getApplicationContext().getSystemService(ConnectivityManager.class);
+        if (connectivityManager == null) return;
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Nullable
+            private Network current;
+
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                boolean switched = current != null && !current.equals(network);
+                current = network;
+                MarketDataHub hub = instance;
+                if (hub != null) hub.onNetworkAvailable(switched);
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                if (network.equals(current)) current = null;
+            }
+        }, new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Subscribes to the price/candle stream of a symbol.
+     */
+    public Subscription subscribeToMarket(String symbol, String interval, boolean includeOhlcv, WebSocketListener listener) {
+        String key = "market/cryptos/stream-market-data/" + symbol + "?interval=" + interval + "&include_ohlcv=" + includeOhlcv;
+        return subscribe(key, listener);
+    }
+
+    /**
+     * Subscribes to the live watchlist stream of a user.
+     */
+    public Subscription subscribeToWatchlist(String userId, WebSocketListener listener) {
+        return subscribe("watchlist/" + userId, listener);
+    }
+
+    /**
+     * Starts the watchlist stream of [userId] over with a fresh handshake, so the backend
+     * subscribes it to the user's current list and sends a new init snapshot. Call after the
+     * backend accepted a watchlist change. Subscribers stay attached and see onOpen again; an
+     * unused socket that is only lingering is closed at once, so it is not reused. No-op if
+     * nothing has used the hub yet.
+     */
+    public static void refreshWatchlist(String userId) {
+        MarketDataHub hub = instance;
+        if (hub != null) hub.refresh("watchlist/" + userId);
+    }
+
+    private void refresh(String key) {
+        Channel channel;
+        boolean unused;
+        synchronized (this) {
+            channel = channels.get(key);
+            if (channel == null) return;
+            unused = channel.listeners.isEmpty();
+        }
+        if (unused) {
+            handler.removeCallbacks(channel.closer);
+            channel.closeIfUnused();
+        } else {
+            Timber.i("Refreshing market data channel: %s", channel.key);
+            channel.replaceSocket();
+        }
+    }
+
+    private Subscription subscribe(String key, WebSocketListener listener) {
+        Subscriber subscriber = new Subscriber(listener);
+        Channel channel;
+        Runnable replay;
+        synchronized (this) {
+            channel = channels.get(key);
+            if (channel == null) {
+                channel = new Channel(key);
+                channels.put(key, channel);
+                channel.open();
+            }
+            replay = channel.attach(subscriber);
+        }
+        replay.run();
+        return new Subscription(channel, subscriber);
+    }
+
+    private synchronized void release(Channel channel, Subscriber subscriber) {
+        if (!channel.listeners.remove(subscriber) || !channel.listeners.isEmpty()) return;
+        handler.postDelayed(channel.closer, LINGER_MS);
+    }
+
+    private synchronized void drop(Channel channel) {
+        if (channels.get(channel.key) == channel) {
+            channels.remove(channel.key);
+        }
+    }
+
+    private void onNetworkAvailable(boolean switched) {
+        List<Channel> current;
+        synchronized (this) {
+            current = new ArrayList<>(channels.values());
+        }
+        for (Channel channel : current) channel.reconnectNow(switched);
+    }
+
+    /**
+     * Backoff before reconnect attempt [attempt] (0-based): exponential up to
+     * RECONNECT_MAX_MS, half of it randomised so that clients dropped together don't return
+     * together.
+     */
+    private static long reconnectDelay(int attempt) {
+        long cap = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << Math.min(attempt, 5));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    /**
+     * Handle returned to a subscriber. Cancelling only detaches that subscriber; the socket is
+     * closed once nobody else is listening.
+     */
+    public final class Subscription {
+        private final Channel channel;
+        private final Subscriber subscriber;
+        private boolean cancelled;
+
+        private Subscription(Channel channel, Subscriber subscriber) {
+            this.channel = channel;
+            this.subscriber = subscriber;
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            release(channel, subscriber);
+        }
+    }
+
+    /**
+     * One subscriber's side of a channel. Events reach the listener one at a time and in order;
+     * those arriving before the subscriber has been replayed the channel's state are held until
+     * the replay is through.
+     */
+    private static final class Subscriber extends WebSocketListener {
+        private final WebSocketListener listener;
+        // Guarded by this; null once the replay is through
+        @Nullable private List<Runnable> held = new ArrayList<>();
+        // Socket whose onOpen the listener has seen, from the replay or the socket itself
+        @Nullable private WebSocket openedOn;
+
+        Subscriber(WebSocketListener listener) {
+            this.listener = listener;
+        }
+
+        synchronized void replay(@Nullable WebSocket socket, @Nullable Response response, @Nullable String frame) {
+            List<Runnable> pending = held;
+            held = null;
+            if (socket != null && response != null) {
+                onOpen(socket, response);
+                if (frame != null) onMessage(socket, frame);
+            }
+            for (Runnable event : pending) event.run();
+        }
+
+        // Call with this held
+        private boolean hold(Runnable event) {
+            if (held == null) return false;
+            held.add(event);
+            return true;
+        }
+
+        @Override
+        public synchronized void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            if (hold(() -> onOpen(webSocket, response))) return;
+            if (openedOn == webSocket) return;
+            openedOn = webSocket;
+            listener.onOpen(webSocket, response);
+        }
+
+        @Override
+        public synchronized void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            if (hold(() -> onMessage(webSocket, text))) return;
+            listener.onMessage(webSocket, text);
+        }
+
+        @Override
+        public synchronized void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            if (hold(() -> onClosing(webSocket, code, reason))) return;
+            listener.onClosing(webSocket, code, reason);
+        }
+
+        @Override
+        public synchronized void onClosed(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            if (hold(() -> onClosed(webSocket, code, reason))) return;
+            listener.onClosed(webSocket, code, reason);
+        }
+
+        @Override
+        public synchronized void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, @Nullable Response response) {
+            if (hold(() -> onFailure(webSocket, t, response))) return;
+            listener.onFailure(webSocket, t, response);
+        }
+    }
+
+    /**
+     * Handshake responses that mean the stream itself was refused, e.g. an unknown symbol.
+     */
+    private static boolean isPermanent(int httpCode) {
+        return httpCode >= 400 && httpCode < 500 && httpCode != 408 && httpCode != 429;
+    }
+
+    private final class Channel extends WebSocketListener {
+        final String key;
+        final List<Subscriber> listeners = new CopyOnWriteArrayList<>();
+        final Runnable closer = this::closeIfUnused;
+        final Runnable reconnector = this::open;
+        // Guarded by this
+        WebSocket socket;
+        @Nullable Response openResponse;
+        @Nullable String lastFrame;
+        int attempts;
+        boolean closed;
+
+        Channel(String key) {
+            this.key = key;
+        }
+
+        void open() {
+            Request request = new Request.Builder()
+                    .url(WS_BASE_URL + key)
+                    .addHeader("Accept", "application/json")
+                    .build();
+            synchronized (this) {
+                if (closed) return;
+                Timber.d("Opening market data channel: %s (attempt %d)", key, attempts + 1);
+                socket = client.newWebSocket(request, this);
+            }
+        }
+
+        /**
+         * Adds [subscriber] and returns its replay of the channel's current state, to be run
+         * outside the hub's lock. Events are fanned out to the listeners captured under the
+         * same lock, so each one is either in the replay or delivered afterwards, never both.
+         */
+        synchronized Runnable attach(Subscriber subscriber) {
+            handler.removeCallbacks(closer);
+            listeners.add(subscriber);
+            WebSocket current = socket;
+            Response response = openResponse;
+            String frame = lastFrame;
+            return () -> subscriber.replay(current, response, frame);
+        }
+
+        /**
+         * The listeners to fan an event of [webSocket] out to, or null if it is not the current socket.
+         */
+        @Nullable
+        private synchronized Subscriber[] targets(WebSocket webSocket) {
+            return webSocket == socket ? listeners.toArray(new Subscriber[0]) : null;
+        }
+
+        void closeIfUnused() {
+            synchronized (MarketDataHub.this) {
+                if (!listeners.isEmpty()) return;
+                drop(this);
+            }
+            handler.removeCallbacks(reconnector);
+            WebSocket current;
+            synchronized (this) {
+                closed = true;
+                current = socket;
+            }
+            Timber.d("Closing idle market data channel: %s", key);
+            current.close(1000, "Normal closure");
+        }
+
+        /**
+         * Reconnects a channel waiting for its backoff right away. If the device switched
+         * networks, an open socket is replaced as well.
+         */
+        void reconnectNow(boolean switched) {
+            synchronized (this) {
+                if (closed || (openResponse != null && !switched)) return;
+            }
+            Timber.i("Network available, reconnecting market data channel: %s", key);
+            replaceSocket();
+        }
+
+        /**
+         * Opens a new socket in place of the current one, skipping any pending backoff. The last
+         * frame is forgotten, so nobody is replayed a frame of the old socket.
+         */
+        void replaceSocket() {
+            WebSocket stale;
+            synchronized (this) {
+                if (closed) return;
+                attempts = 0;
+                openResponse = null;
+                lastFrame = null;
+                stale = socket;
+            }
+            handler.removeCallbacks(reconnector);
+            open();
+            // Events of the replaced socket are ignored from here on
+            if (stale != null) stale.cancel();
+        }
+
+        private void scheduleReconnect() {
+            long delay;
+            synchronized (this) {
+                if (closed) return;
+                openResponse = null;
+                delay = reconnectDelay(attempts++);
+            }
+            Timber.i("Reconnecting market data channel %s in %d ms", key, delay);
+            handler.postDelayed(reconnector, delay);
+        }
+
+        /**
+         * After an unexpected disconnect: reconnect if someone is still listening, otherwise
+         * forget the channel.
+         */
+        private void onDisconnected() {
+            synchronized (MarketDataHub.this) {
+                if (listeners.isEmpty()) {
+                    drop(this);
+                    synchronized (this) {
+                        closed = true;
+                    }
+                    return;
+                }
+            }
+            scheduleReconnect();
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            Subscriber[] targets;
+            synchronized (this) {
+                if (webSocket != socket) return;
+                openResponse = response;
+                attempts = 0;
+                targets = listeners.toArray(new Subscriber[0]);
+            }
+            for (Subscriber subscriber : targets) subscriber.onOpen(webSocket, response);
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            Subscriber[] targets;
+            synchronized (this) {
+                if (webSocket != socket) return;
+                lastFrame = text;
+                targets = listeners.toArray(new Subscriber[0]);
+            }
+            for (Subscriber subscriber : targets) subscriber.onMessage(webSocket, text);
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            Subscriber[] targets = targets(webSocket);
+            if (targets == null) return;
+            // Complete the close handshake; onClosed decides whether to reconnect
+            webSocket.close(1000, null);
+            for (Subscriber subscriber : targets) subscriber.onClosing(webSocket, code, reason);
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            Subscriber[] targets = targets(webSocket);
+            if (targets == null) return;
+            for (Subscriber subscriber : targets) subscriber.onClosed(webSocket, code, reason);
+            if (isClosed()) {
+                drop(this);
+            } else {
+                Timber.w("Market data channel closed by server: %s (%d %s)", key, code, reason);
+                onDisconnected();
+            }
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, @Nullable Response response) {
+            Subscriber[] targets = targets(webSocket);
+            if (targets == null) return;
+            Timber.w(t, "Market data channel failed: %s (HTTP %s)", key, response != null ? response.code() : "-");
+            for (Subscriber subscriber : targets) subscriber.onFailure(webSocket, t, response);
+            if (isClosed()) return;
+            if (response != null && isPermanent(response.code())) {
+                // Retrying a refused stream won't help
+                synchronized (this) {
+                    closed = true;
+                }
+                drop(this);
+                return;
+            }
+            onDisconnected();
+        }
+    }
+}
@@ -8,18 +8,30 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 
+import backend.CandleDao;
 import backend.PatternDao;
 import backend.SymbolDao;
+import backend.WatchlistDao;
+import models.CachedCandle;
 import models.CachedSymbol;
+import models.CachedSymbolFts;
+import models.CandleHistoryStart;
 import models.Pattern;
+import models.WatchlistEntry;
+import models.WatchlistOutboxOp;
 
-@Database(entities = {Pattern.class, CachedSymbol.class}, version = 3, exportSchema = false) // MIGRATION: Bump version
+@Database(entities = {Pattern.class, CachedSymbol.class, CachedSymbolFts.class, CachedCandle.class,
+        CandleHistoryStart.class, WatchlistEntry.class, WatchlistOutboxOp.class}, version = 10, exportSchema = false) // MIGRATION: Bump version
 public abstract class AppDatabase extends RoomDatabase {
 
     public abstract PatternDao patternDao();
 
     public abstract SymbolDao symbolDao();
 
+    public abstract CandleDao candleDao();
+
+    public abstract WatchlistDao watchlistDao();
+
     private static volatile AppDatabase INSTANCE;
 
     public static AppDatabase getInstance(final Context context) {
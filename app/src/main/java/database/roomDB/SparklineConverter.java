@@ -0,0 +1,79 @@
+package database.roomDB;
+
+import androidx.room.TypeConverter;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Stores sparklines as compact BLOBs instead of JSON text.
+ *
+ * Each point is kept as the raw bits of a float, written as the zigzag varint of its difference
+ * to the previous point's bits. Neighbouring prices share sign, exponent and high mantissa bits,
+ * so most points take two or three bytes instead of the 4 of a float or the ~18 characters of a
+ * JSON double. The encoding is lossless for the float values. A truncated or otherwise malformed
+ * BLOB reads as no sparkline.
+ */
+public final class SparklineConverter {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private SparklineConverter() {
+    }
+
+    @TypeConverter
+    public static byte[] fromPoints(float[] points) {
+        if (points == null) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + points.length * 3);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, points.length);
+        int previous = 0;
+        for (float point : points) {
+            int bits = Float.floatToRawIntBits(point);
+            int delta = bits - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 31));
+            previous = bits;
+        }
+        return out.toByteArray();
+    }
+
+    @TypeConverter
+    public static float[] toPoints(byte[] blob) {
+        if (blob == null || blob.length == 0 || blob[0] != FORMAT_VERSION) return null;
+        int[] position = {1};
+        long count = readVarint(blob, position);
+        // Every point takes at least one byte, which also bounds the allocation
+        if (count < 0 || count > blob.length - position[0]) return null;
+        float[] points = new float[(int) count];
+        int previous = 0;
+        for (int i = 0; i < points.length; i++) {
+            long zigzag = readVarint(blob, position);
+            if (zigzag < 0) return null;
+            previous += ((int) zigzag >>> 1) ^ -((int) zigzag & 1);
+            points[i] = Float.intBitsToFloat(previous);
+        }
+        return points;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads an unsigned 32-bit varint, or returns -1 if the BLOB ends first or the varint is longer
+     * than five bytes.
+     */
+    private static long readVarint(byte[] blob, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position[0] >= blob.length) return -1;
+            byte b = blob[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value & 0xFFFFFFFFL;
+        }
+        return -1;
+    }
+}
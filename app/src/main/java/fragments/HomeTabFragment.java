@@ -298,7 +298,7 @@ public class HomeTabFragment extends Fragment {
                     binding.searchBox.setText("");
                     // Clear search results
                     searchedSymbolList.clear();
-                    searchedSymbolAdapter.notifyDataSetChanged();
+                    searchedSymbolAdapter.setData(Collections.emptyList());
                     searchBarStateBeforeClicked();
                 }
             }
@@ -312,7 +312,7 @@ public class HomeTabFragment extends Fragment {
             binding.searchBox.setText("");
             // Clear search results
             searchedSymbolList.clear();
-            searchedSymbolAdapter.notifyDataSetChanged();
+            searchedSymbolAdapter.setData(Collections.emptyList());
             searchBarStateBeforeClicked();
         } else {
             requireActivity().finishAffinity();
@@ -405,7 +405,7 @@ public class HomeTabFragment extends Fragment {
     private void clearSearch() {
         showLoading(false);
         searchedSymbolList.clear();
-        searchedSymbolAdapter.notifyDataSetChanged();
+        searchedSymbolAdapter.setData(Collections.emptyList());
     }
 
     // Update setupObservers to handle both lists separately
@@ -466,10 +466,8 @@ public class HomeTabFragment extends Fragment {
             Log.d("HomeTabFragment", "RecyclerView adapter: " + (binding.symbolWatchlistRecyclerview.getAdapter() != null ? "attached" : "null"));
 
             if (symbols != null) {
+                // setData dispatches a diff; a full notifyDataSetChanged would rebind every row per tick
                 watchlistAdapter.setData(symbols);
-                Log.d("HomeTabFragment", "After setData - adapter item count: " + watchlistAdapter.getItemCount());
-                watchlistAdapter.notifyDataSetChanged();
-                Log.d("HomeTabFragment", "notifyDataSetChanged() called");
             }
 
             updateWatchlistVisibility(symbols);
@@ -52,7 +52,10 @@ import kotlinx.coroutines.withContext
 import market.symbol.repo.MarketDataRepository
 import market.symbol.ui.analysis.AnalysisPanelManager
 import market.symbol.ui.market_chart.ChartManager
+import market.symbol.ui.market_chart.ChunkedRenderScheduler
+import market.symbol.ui.market_chart.HistoryPrefetcher
 import market.symbol.viewmodel.AnalysisMode
+import market.symbol.viewmodel.CandleDelta
 import market.symbol.viewmodel.SymbolMarketDataViewModel
 import model_interfaces.OnWatchlistActionListener
 import models.Symbol
@@ -74,11 +77,19 @@ class SymbolMarketDataActivity : AppCompatActivity() {
     // REMOVED: These are no longer needed as they come from the cached object
     // private var initialPrice: Double? = null
     // private var initialChange: Double? = null
-    private val LOAD_MORE_COOLDOWN_MS = 3000L
-    private var lastLoadMoreTime = 0L
+    private val historyPrefetcher = HistoryPrefetcher { pageSize, onComplete ->
+        viewModel.loadMoreHistoricalData(pageSize, onComplete)
+    }
     private lateinit var analysisPanelManager: AnalysisPanelManager
     private var onPermissionGrantedCallback: (() -> Unit)? = null
-    private var currentlyDisplayedCandles = mutableListOf<CandlestickData>()
+    // Renders the initial history over as many frames as this device needs
+    private val candleRenderer = ChunkedRenderScheduler<CandlestickData>(
+        render = { shown -> chartManager.setCandleData(shown) },
+        onComplete = ::flushHeldDeltas
+    )
+
+    // Live bars that arrive while the history is still being rendered; applied once it is on screen
+    private val heldDeltas = mutableListOf<CandleDelta>()
 
     private var isAddingToWatchlist = false
     private val requestPermissionLauncher =
@@ -101,13 +112,14 @@ class SymbolMarketDataActivity : AppCompatActivity() {
         binding = ActivitySymbolMarketDataBinding.inflate(layoutInflater)
         setContentView(binding.root)
 
-        currentlyDisplayedCandles.clear()
         symbol = intent.getStringExtra("SYMBOL") ?: "BTCUSDT"
 
         // Set up the basic UI first
         initializeViewModel()
         initViews()
         viewModel.loadInitialSymbolData(symbol!!)
+        // Collected right away rather than in setupObservers, so the quote the list showed is in the first frame
+        observeQuote()
 
         // Defer heavy stuff until the UI is shown
         binding.root.post {
@@ -136,9 +148,9 @@ class SymbolMarketDataActivity : AppCompatActivity() {
         binding.marketChartLayout.symbol.text = cachedSymbol.symbol
         binding.marketChartLayout.asset.text = cachedSymbol.asset
 
-        // Use the consistent price/change fields from your cached Symbol object
-        val price = cachedSymbol.currentPrice
-        val change = cachedSymbol.get_24hChange()
+        // The live quote, if there is one, is newer than the stored row
+        val price = viewModel.price.value ?: cachedSymbol.currentPrice
+        val change = viewModel.change.value ?: cachedSymbol.get_24hChange()
 
         binding.marketChartLayout.currentPrice.text = String.format(Locale.US, "US$%.2f", price)
         binding.marketChartLayout.percentagePriceChange.text = String.format(Locale.US, "%.2f%%", change)
@@ -146,8 +158,7 @@ class SymbolMarketDataActivity : AppCompatActivity() {
         binding.marketChartLayout.percentagePriceChange.setTextColor(ContextCompat.getColor(this, colorRes))
 
         // Update sparkline from cached data
-        val sparkline = cachedSymbol.sparkline?.toDoubleArray()
-        chartManager.updateSparkline(sparkline)
+        chartManager.updateSparkline(cachedSymbol.sparklinePoints)
     }
 
     private fun initializeTimeIntervalTabs() {
@@ -193,9 +204,10 @@ class SymbolMarketDataActivity : AppCompatActivity() {
                     Log.d("SymbolMarketDataActivity", "Cleared analysis")
                     viewModel.cancelStream()
                     Log.d("SymbolMarketDataActivity", "Previous Stream cancelled")
-                    currentlyDisplayedCandles.clear()
+                    resetCandleRendering()
                     chartManager.setCandleData(emptyList())
                     chartManager.setVolumeData(emptyList())
+                    historyPrefetcher.reset()
                     viewModel.setInterval(interval)
                     if (interval == "1d" || interval == "1w" || interval == "1M") {
                         binding.marketChartLayout.trendlineButton.visibility = View.GONE
@@ -286,9 +298,9 @@ class SymbolMarketDataActivity : AppCompatActivity() {
             val symbolStr = intent?.getStringExtra("SYMBOL") ?: ""
             val asset = intent?.getStringExtra("ASSET") ?: ""
             val baseCurrency = intent?.getStringExtra("BASE_CURRENCY") ?: ""
-            val currentPrice = viewModel.cachedSymbol.value?.currentPrice ?: 0.0
-            val change24h = viewModel.cachedSymbol.value?.get_24hChange() ?: 0.0
-            val sparkline: List<Double> = viewModel.cachedSymbol.value?.sparkline ?: emptyList()
+            val currentPrice = viewModel.price.value ?: viewModel.cachedSymbol.value?.currentPrice ?: 0.0
+            val change24h = viewModel.change.value ?: viewModel.cachedSymbol.value?.get_24hChange() ?: 0.0
+            val sparkline: FloatArray = viewModel.cachedSymbol.value?.sparklinePoints ?: FloatArray(0)
 
             val symbolObj = Symbol(
                 symbolStr,
@@ -412,16 +424,56 @@ class SymbolMarketDataActivity : AppCompatActivity() {
             }
         }
         viewModel = ViewModelProvider(this, factory)[SymbolMarketDataViewModel::class.java]
+        // Throttles the live stream while this screen is stopped
+        lifecycle.addObserver(viewModel.streamGovernor)
         val homeViewFactory = HomeViewModelFactory(application)
         homeViewModel = ViewModelProvider(this, homeViewFactory)[HomeViewModel::class.java]
     }
 
+    private fun resetCandleRendering() {
+        candleRenderer.cancel()
+        heldDeltas.clear()
+    }
+
+    private fun flushHeldDeltas() {
+        for (delta in heldDeltas) {
+            chartManager.updateBar(delta.candle, delta.volume)
+        }
+        heldDeltas.clear()
+    }
+
     private fun initializeWithSymbol() {
         val symbol = intent.getStringExtra("SYMBOL") ?: "BTCUSDT"
         viewModel.setSymbol(symbol)
         viewModel.setInterval("1m")
     }
 
+    private fun observeQuote() {
+        lifecycleScope.launch {
+            viewModel.price.collect { price ->
+                price?.let {
+                    binding.marketChartLayout.currentPrice.text =
+                        String.format(Locale.US, "US$%.2f", it)
+                }
+            }
+        }
+        lifecycleScope.launch {
+            viewModel.change.collect { change ->
+                change?.let {
+                    binding.marketChartLayout.percentagePriceChange.text =
+                        String.format(Locale.US, "%.2f%%", it)
+                    val colorRes = if (it >= 0) R.color.green_chart_color else R.color.crimson_red
+                    binding.marketChartLayout.percentagePriceChange.setTextColor(
+                        ContextCompat.getColor(
+                            this@SymbolMarketDataActivity,
+                            colorRes
+                        )
+                    )
+                }
+            }
+        }
+    }
+
     private fun setupObservers() {
         // NEW: Observe the cached symbol data for the initial display
         lifecycleScope.launch {
@@ -437,14 +489,10 @@ class SymbolMarketDataActivity : AppCompatActivity() {
             }
         }
         lifecycleScope.launch {
-            viewModel.chunkedCandlestickData.collect { chunk ->
-                if (chunk.isEmpty() && currentlyDisplayedCandles.isNotEmpty()) {
-                    currentlyDisplayedCandles.clear()
-                } else {
-                    currentlyDisplayedCandles.addAll(chunk)
-                }
-                chartManager.setCandleData(currentlyDisplayedCandles.toList())
-                Log.d("ChartRender", "Rendered chunk. Total candles: ${currentlyDisplayedCandles.size}")
+            viewModel.chunkedCandlestickData.collect { data ->
+                heldDeltas.clear()
+                candleRenderer.submit(data)
+                Log.d("ChartRender", "Rendering ${data.size} candles")
             }
         }
         lifecycleScope.launch {
@@ -467,29 +515,6 @@ class SymbolMarketDataActivity : AppCompatActivity() {
                 }
             }
         }
-        lifecycleScope.launch {
-            viewModel.price.collect { price ->
-                price?.let {
-                    binding.marketChartLayout.currentPrice.text =
-                        String.format(Locale.US, "US$%.2f", it)
-                }
-            }
-        }
-        lifecycleScope.launch {
-            viewModel.change.collect { change ->
-                change?.let {
-                    binding.marketChartLayout.percentagePriceChange.text =
-                        String.format(Locale.US, "%.2f%%", it)
-                    val colorRes = if (it >= 0) R.color.green_chart_color else R.color.crimson_red
-                    binding.marketChartLayout.percentagePriceChange.setTextColor(
-                        ContextCompat.getColor(
-                            this@SymbolMarketDataActivity,
-                            colorRes
-                        )
-                    )
-                }
-            }
-        }
         lifecycleScope.launch {
             viewModel.error.collect { error ->
                 error?.let {
@@ -550,9 +575,21 @@ class SymbolMarketDataActivity : AppCompatActivity() {
         }
         lifecycleScope.launch {
             viewModel.candlestickData.collectLatest { data ->
+                // A full series replaces whatever the renderer had left to show
+                resetCandleRendering()
                 chartManager.setCandleData(data)
             }
         }
+        lifecycleScope.launch {
+            viewModel.candleDeltas.collect { delta ->
+                if (candleRenderer.isRendering) {
+                    // The next chunk would overwrite the bar with the older history snapshot
+                    heldDeltas.add(delta)
+                } else {
+                    chartManager.updateBar(delta.candle, delta.volume)
+                }
+            }
+        }
         lifecycleScope.launch {
             viewModel.interval.collect { interval ->
                 if (interval == "1d" || interval == "1w" || interval == "1M") {
@@ -937,19 +974,15 @@ class SymbolMarketDataActivity : AppCompatActivity() {
     }
 
     private fun handleVisibleTimeRangeChange(from: Time.Utc, to: Time.Utc) {
-        if (!viewModel.hasInitialDataLoaded.value) return
-        val currentTime = System.currentTimeMillis()
-        if (currentTime - lastLoadMoreTime < LOAD_MORE_COOLDOWN_MS || viewModel.isLoading.value) return
+        if (!viewModel.hasInitialDataLoaded.value || viewModel.isLoading.value) return
         val candles = viewModel.candles.value
         if (candles.isEmpty()) return
-        val earliestTime = candles.first().time
-        val fromTime = from.timestamp
-        val visibleDuration = to.timestamp - fromTime
-        val threshold = (visibleDuration * 0.1).toLong()
-        if (fromTime < earliestTime + threshold) {
-            lastLoadMoreTime = currentTime
-            viewModel.loadMoreHistoricalData()
-        }
+        historyPrefetcher.onVisibleRangeChanged(
+            from.timestamp,
+            to.timestamp,
+            candles.first().time,
+            viewModel.currentIntervalMillis()
+        )
     }
 
     private fun scrollChartToTimeframe(timeframe: String) {
@@ -1034,5 +1067,6 @@ class SymbolMarketDataActivity : AppCompatActivity() {
     override fun onDestroy() {
         super.onDestroy()
         currentAnimator?.cancel()
+        resetCandleRendering()
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package market.symbol.repo
+
+/**
+ * Bar durations for the chart intervals supported by the backend.
+ */
+object CandleIntervals {
+
+    fun millis(interval: String): Long {
+        return when (interval) {
+            "1m" -> 60 * 1000L
+            "5m" -> 5 * 60 * 1000L
+            "15m" -> 15 * 60 * 1000L
+            "30m" -> 30 * 60 * 1000L
+            "1h" -> 60 * 60 * 1000L
+            "2h" -> 2 * 60 * 60 * 1000L
+            "4h" -> 4 * 60 * 60 * 1000L
+            "6h" -> 6 * 60 * 60 * 1000L
+            "1d" -> 24 * 60 * 60 * 1000L
+            "3d" -> 3 * 24 * 60 * 60 * 1000L
+            "1w" -> 7 * 24 * 60 * 60 * 1000L
+            "1M" -> 30 * 24 * 60 * 60 * 1000L  // Approximate
+            else -> 60 * 1000L
+        }
+    }
+
+    fun seconds(interval: String): Long = millis(interval) / 1000
+}
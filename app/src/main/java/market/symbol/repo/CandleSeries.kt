@@ -0,0 +1,216 @@
+package market.symbol.repo
+
+/**
+ * Columnar candle history backed by primitive arrays.
+ *
+ * Bars are kept sorted by time in parallel `long`/`double` columns with spare room on both
+ * ends, so scroll-back pages are prepended and live bars appended in amortized O(1) per bar
+ * without boxing a [Candle] per element. Readers get [Snapshot]s: cheap list views over the
+ * columns that stay valid while the series keeps growing, because growth either writes
+ * outside the snapshot's range or moves the series to fresh arrays. The only in-place write
+ * inside an existing range is [replaceLast], so snapshots always see the latest state of the
+ * forming bar.
+ *
+ * Not thread-safe; mutate from a single thread (the view model uses the main thread).
+ */
+class CandleSeries(initialCapacity: Int = DEFAULT_CAPACITY) {
+
+    internal class Columns(capacity: Int) {
+        val times = LongArray(capacity)
+        val opens = DoubleArray(capacity)
+        val highs = DoubleArray(capacity)
+        val lows = DoubleArray(capacity)
+        val closes = DoubleArray(capacity)
+        val volumes = DoubleArray(capacity)
+
+        val capacity: Int get() = times.size
+
+        fun write(index: Int, candle: Candle) {
+            times[index] = candle.time
+            opens[index] = candle.open
+            highs[index] = candle.high
+            lows[index] = candle.low
+            closes[index] = candle.close
+            volumes[index] = candle.volume
+        }
+
+        fun copyTo(target: Columns, targetIndex: Int, from: Int, to: Int) {
+            times.copyInto(target.times, targetIndex, from, to)
+            opens.copyInto(target.opens, targetIndex, from, to)
+            highs.copyInto(target.highs, targetIndex, from, to)
+            lows.copyInto(target.lows, targetIndex, from, to)
+            closes.copyInto(target.closes, targetIndex, from, to)
+            volumes.copyInto(target.volumes, targetIndex, from, to)
+        }
+    }
+
+    private var columns = Columns(maxOf(initialCapacity, 2))
+    private var head = columns.capacity / 2
+    private var tail = head
+
+    val size: Int get() = tail - head
+
+    fun isEmpty(): Boolean = size == 0
+
+    fun time(index: Int): Long = columns.times[head + index]
+    fun firstTime(): Long = columns.times[head]
+    fun lastTime(): Long = columns.times[tail - 1]
+
+    operator fun get(index: Int): Candle = candleAt(columns, head + index)
+
+    /**
+     * Binary search by bar open time. Returns the index of the bar, or `-(insertionPoint + 1)`
+     * if there is none, like [java.util.Arrays.binarySearch].
+     */
+    fun indexOfTime(time: Long): Int {
+        val index = java.util.Arrays.binarySearch(columns.times, head, tail, time)
+        return if (index >= 0) index - head else index + head
+    }
+
+    fun clear() {
+        // Fresh columns, so snapshots handed out earlier keep their data
+        columns = Columns(columns.capacity)
+        head = columns.capacity / 2
+        tail = head
+    }
+
+    /**
+     * Replaces the whole series with [candles].
+     */
+    fun setAll(candles: List<Candle>) {
+        val sorted = sortedRun(candles)
+        columns = Columns(maxOf(sorted.size * 2, DEFAULT_CAPACITY))
+        head = (columns.capacity - sorted.size) / 2
+        tail = head
+        for (candle in sorted) {
+            if (tail > head && candle.time <= columns.times[tail - 1]) continue
+            columns.write(tail++, candle)
+        }
+    }
+
+    fun append(candle: Candle) {
+        ensureBackRoom(1)
+        columns.write(tail++, candle)
+    }
+
+    fun replaceLast(candle: Candle) {
+        columns.write(tail - 1, candle)
+    }
+
+    /**
+     * Appends the bars of [candles] that are newer than the current last bar.
+     * Returns the number of bars added.
+     */
+    fun appendAll(candles: List<Candle>): Int {
+        val sorted = sortedRun(candles)
+        val lastTime = if (isEmpty()) Long.MIN_VALUE else lastTime()
+        var start = 0
+        while (start < sorted.size && sorted[start].time <= lastTime) start++
+        ensureBackRoom(sorted.size - start)
+        var added = 0
+        for (i in start until sorted.size) {
+            val candle = sorted[i]
+            if (tail > head && candle.time <= columns.times[tail - 1]) continue
+            columns.write(tail++, candle)
+            added++
+        }
+        return added
+    }
+
+    /**
+     * Prepends the bars of [candles] that are older than the current first bar.
+     * Returns the number of bars added.
+     */
+    fun prependAll(candles: List<Candle>): Int {
+        val sorted = sortedRun(candles)
+        val firstTime = if (isEmpty()) Long.MAX_VALUE else firstTime()
+        var end = sorted.size
+        while (end > 0 && sorted[end - 1].time >= firstTime) end--
+        ensureFrontRoom(end)
+        var added = 0
+        for (i in end - 1 downTo 0) {
+            val candle = sorted[i]
+            if (tail > head && candle.time >= columns.times[head]) continue
+            columns.write(--head, candle)
+            added++
+        }
+        return added
+    }
+
+    /**
+     * A view of the bars currently in the series.
+     */
+    fun snapshot(): Snapshot = Snapshot(columns, head, tail)
+
+    /**
+     * Read-only list view over a range of the columns. Element access builds a [Candle] on the
+     * fly; use the primitive accessors on hot paths. Equality is identity so that publishing a
+     * new snapshot through a StateFlow never compares the series element by element.
+     */
+    class Snapshot internal constructor(
+        private val columns: Columns,
+        private val from: Int,
+        private val to: Int
+    ) : AbstractList<Candle>(), RandomAccess {
+
+        override val size: Int get() = to - from
+
+        override fun get(index: Int): Candle {
+            if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index: $index, size: $size")
+            return candleAt(columns, from + index)
+        }
+
+        fun timeAt(index: Int): Long = columns.times[from + index]
+        fun openAt(index: Int): Double = columns.opens[from + index]
+        fun highAt(index: Int): Double = columns.highs[from + index]
+        fun lowAt(index: Int): Double = columns.lows[from + index]
+        fun closeAt(index: Int): Double = columns.closes[from + index]
+        fun volumeAt(index: Int): Double = columns.volumes[from + index]
+
+        override fun equals(other: Any?): Boolean = this === other
+        override fun hashCode(): Int = System.identityHashCode(this)
+    }
+
+    private fun ensureFrontRoom(count: Int) {
+        if (count <= head) return
+        grow(frontRoom = count + maxOf(size, DEFAULT_CAPACITY) / 2, backRoom = columns.capacity - tail)
+    }
+
+    private fun ensureBackRoom(count: Int) {
+        if (tail + count <= columns.capacity) return
+        grow(frontRoom = head, backRoom = count + maxOf(size, DEFAULT_CAPACITY) / 2)
+    }
+
+    private fun grow(frontRoom: Int, backRoom: Int) {
+        val count = size
+        val grown = Columns(frontRoom + count + backRoom)
+        columns.copyTo(grown, frontRoom, head, tail)
+        columns = grown
+        head = frontRoom
+        tail = frontRoom + count
+    }
+
+    companion object {
+        private const val DEFAULT_CAPACITY = 512
+
+        private fun candleAt(columns: Columns, index: Int): Candle = Candle(
+            columns.times[index],
+            columns.opens[index],
+            columns.highs[index],
+            columns.lows[index],
+            columns.closes[index],
+            columns.volumes[index]
+        )
+
+        /**
+         * Server pages and store reads are already sorted, so this is a linear check that
+         * only falls back to sorting for out-of-order input.
+         */
+        private fun sortedRun(candles: List<Candle>): List<Candle> {
+            for (i in 1 until candles.size) {
+                if (candles[i].time < candles[i - 1].time) return candles.sortedBy { it.time }
+            }
+            return candles
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package market.symbol.repo
+
+import backend.CandleDao
+import models.CachedCandle
+import models.CandleHistoryStart
+import java.util.concurrent.TimeUnit
+
+/**
+ * On-device candle store keyed by (symbol, interval, openTime).
+ *
+ * Besides plain reads and writes it works out which parts of a requested range are not
+ * covered by stored bars, so callers only go to the network for those gaps. It also keeps,
+ * per series, the earliest open time the backend has bars for once a fetch has found it, so
+ * the range before a symbol's listing stops counting as a gap until that finding expires.
+ * All methods except [findGaps] and [historyStartAfter] hit the database and must be called
+ * off the main thread.
+ */
+class CandleStore(private val candleDao: CandleDao) {
+
+    /**
+     * A missing range of open times in seconds, both ends inclusive.
+     */
+    data class Gap(val from: Long, val to: Long)
+
+    fun getRange(symbol: String, interval: String, fromSeconds: Long, toSeconds: Long): List<Candle> =
+        candleDao.getRange(symbol, interval, fromSeconds, toSeconds).map { it.toCandle() }
+
+    fun save(symbol: String, interval: String, candles: List<Candle>) {
+        if (candles.isEmpty()) return
+        candleDao.upsertAll(candles.map { it.toCachedCandle(symbol, interval) })
+    }
+
+    fun save(symbol: String, interval: String, candle: Candle) {
+        candleDao.upsert(candle.toCachedCandle(symbol, interval))
+    }
+
+    /**
+     * Open time in seconds of the earliest stored bar of the series, or null if none is stored.
+     */
+    fun firstStoredTime(symbol: String, interval: String): Long? = candleDao.getFirstOpenTime(symbol, interval)
+
+    /**
+     * Open time in seconds before which the backend has no bars for the series, if known and
+     * not older than [HISTORY_START_TTL_MS].
+     */
+    fun historyStart(
+        symbol: String,
+        interval: String,
+        nowMillis: Long = System.currentTimeMillis()
+    ): Long? {
+        val start = candleDao.getHistoryStart(symbol, interval) ?: return null
+        return if (nowMillis - start.recordedAt < HISTORY_START_TTL_MS) start.firstOpenTime else null
+    }
+
+    /**
+     * Records that the backend has no bars for the series before [seconds].
+     */
+    fun markNoHistoryBefore(
+        symbol: String,
+        interval: String,
+        seconds: Long,
+        nowMillis: Long = System.currentTimeMillis()
+    ) {
+        candleDao.upsertHistoryStart(CandleHistoryStart(symbol, interval, seconds, nowMillis))
+    }
+
+    /**
+     * Open time to record as the series' history start after fetching the window ending at
+     * [toSeconds], given the bars that were [stored] in it and the bars [fetched] for its gaps
+     * (null if a fetch failed), or null when the fetch proves nothing. Only an empty answer for a
+     * whole window that ends before the earliest stored bar does: an empty store, a failed fetch
+     * or bars missing in the middle of the data may just be holes on the backend.
+     */
+    fun historyStartAfter(
+        stored: List<Candle>,
+        fetched: List<Candle>?,
+        toSeconds: Long,
+        earliestStoredSeconds: Long?
+    ): Long? {
+        if (stored.isNotEmpty() || fetched == null || fetched.isNotEmpty()) return null
+        if (earliestStoredSeconds == null || toSeconds >= earliestStoredSeconds) return null
+        return toSeconds + 1
+    }
+
+    /**
+     * Finds the parts of [fromSeconds, toSeconds] not covered by [stored], which must be sorted
+     * by time. A bar that may still be forming (the latest one) always counts as missing so it
+     * gets refreshed. When the range is riddled with holes they are collapsed into one range.
+     * Nothing before [historyStartSeconds], the series' known first bar, is reported missing.
+     * Gaps are split into backend pages (see [HistoryRangePlanner]) and returned oldest first,
+     * so each one can be fetched with a single request.
+     */
+    fun findGaps(
+        stored: List<Candle>,
+        fromSeconds: Long,
+        toSeconds: Long,
+        stepSeconds: Long,
+        historyStartSeconds: Long? = null,
+        nowSeconds: Long = System.currentTimeMillis() / 1000
+    ): List<Gap> {
+        val from = if (historyStartSeconds != null) maxOf(fromSeconds, historyStartSeconds) else fromSeconds
+        if (from > toSeconds) return emptyList()
+        if (stored.isEmpty()) return pages(listOf(Gap(from, toSeconds)), stepSeconds)
+
+        val gaps = mutableListOf<Gap>()
+        val first = stored.first().time
+        if (first - from >= stepSeconds) {
+            gaps.add(Gap(from, first - 1))
+        }
+
+        // Allow some slack so irregular bars (e.g. calendar months) don't look like holes
+        val maxSpacing = stepSeconds + stepSeconds / 2
+        for (i in 1 until stored.size) {
+            val previous = stored[i - 1].time
+            val current = stored[i].time
+            if (current - previous > maxSpacing) {
+                gaps.add(Gap(previous + 1, current - 1))
+            }
+        }
+
+        val last = stored.last().time
+        if (toSeconds - last >= stepSeconds || last + stepSeconds > nowSeconds) {
+            gaps.add(Gap(last, toSeconds))
+        }
+
+        val ranges = if (gaps.size > MAX_GAP_REQUESTS) {
+            listOf(Gap(gaps.first().from, gaps.last().to))
+        } else {
+            gaps
+        }
+        return pages(ranges, stepSeconds)
+    }
+
+    private fun pages(gaps: List<Gap>, stepSeconds: Long): List<Gap> =
+        gaps.flatMap { HistoryRangePlanner.plan(it.from, it.to, stepSeconds).asReversed() }
+
+    private fun CachedCandle.toCandle(): Candle = Candle(openTime, open, high, low, close, volume)
+
+    private fun Candle.toCachedCandle(symbol: String, interval: String): CachedCandle =
+        CachedCandle(symbol, interval, time, open, high, low, close, volume)
+
+    companion object {
+        private const val MAX_GAP_REQUESTS = 3
+
+        // A listing date doesn't move, but a backend backfill can add older bars
+        private val HISTORY_START_TTL_MS = TimeUnit.DAYS.toMillis(7)
+    }
+}
@@ -0,0 +1,35 @@
+package market.symbol.repo
+
+/**
+ * Splits a history span into backend-page-sized windows so that they can be fetched
+ * independently.
+ */
+object HistoryRangePlanner {
+
+    /**
+     * Largest page the market data endpoint returns in one response.
+     */
+    const val MAX_PAGE_SIZE = 1000
+
+    /**
+     * Windows of at most [pageSize] bars covering [fromSeconds, toSeconds], both ends inclusive.
+     * Windows are ordered newest first, so each one ends right before the previous one starts.
+     */
+    fun plan(
+        fromSeconds: Long,
+        toSeconds: Long,
+        stepSeconds: Long,
+        pageSize: Int = MAX_PAGE_SIZE
+    ): List<CandleStore.Gap> {
+        if (toSeconds < fromSeconds) return emptyList()
+        val span = maxOf(stepSeconds, 1L) * pageSize
+        val windows = ArrayList<CandleStore.Gap>(((toSeconds - fromSeconds) / span + 1).toInt())
+        var end = toSeconds
+        while (end >= fromSeconds) {
+            val start = maxOf(end - span + 1, fromSeconds)
+            windows.add(CandleStore.Gap(start, end))
+            end = start - 1
+        }
+        return windows
+    }
+}
@@ -1,14 +1,18 @@
 package market.symbol.repo
 
 import android.content.Context
+import android.os.SystemClock
 import backend.ApiService // Make sure ApiService is imported
 import com.google.gson.Gson
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.async
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import market.symbol.model.AnalysisProgressUpdate
 import market.symbol.model.AnalysisRequest
 import market.symbol.model.AnalysisTaskResponse
-import okhttp3.OkHttpClient
 import okhttp3.Request
 import okhttp3.Response
 import okhttp3.sse.EventSource
@@ -16,18 +20,22 @@ import okhttp3.sse.EventSourceListener
 import okhttp3.sse.EventSources
 import android.util.Log
 import backend.MainClient
+import backend.NetworkModule
 import backend.SymbolDao
 import backend.WebSocketService
-import com.google.gson.JsonObject
 import data.remote.WebSocketServiceImpl
 import database.roomDB.AppDatabase
 import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import market.symbol.model.AnalysisResult
 import models.Symbol
 import okhttp3.WebSocket
 import okhttp3.WebSocketListener
+import java.io.IOException
 import java.text.SimpleDateFormat
 import java.util.Date
 import java.util.Locale
@@ -56,7 +64,7 @@ class MarketDataRepository(
     private val context: Context,
     private val TAG: String = "MarketDataRepository",
     private val apiService: ApiService = MainClient.getInstance().create(ApiService::class.java),
-    private val webSocketService: WebSocketService = WebSocketServiceImpl(OkHttpClient(), OkHttpClient())
+    private val webSocketService: WebSocketService = WebSocketServiceImpl()
 ) {
 
     private val apiDateFormat = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US).apply {
@@ -74,52 +82,120 @@ class MarketDataRepository(
 
     private val symbolDao: SymbolDao = AppDatabase.getInstance(context).symbolDao() // <-- INITIALIZE DAO
 
+    private val candleStore = CandleStore(AppDatabase.getInstance(context).candleDao())
+
+    // Writes to the candle store outlive the flows that produce them
+    private val storeScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
     // NEW: Function to get a single symbol from the local cache
     suspend fun getCachedSymbol(symbol: String): Symbol? = withContext(Dispatchers.IO) {
         symbolDao.getSymbolByTicker(symbol)?.toSymbol()
     }
 
-    fun subscribeToMarketUpdates(symbol: String, interval: String): Flow<MarketUpdate> {
+    /**
+     * Live ticks and bars for [symbol]. While [isSampling] returns true (the screen is in the
+     * background) frames are dropped without being decoded, except one every
+     * [SAMPLE_INTERVAL_MS] whose price is still delivered. Bars are not folded meanwhile; when
+     * sampling ends, the ones missed are fetched first, as after a reconnect.
+     */
+    fun subscribeToMarketUpdates(
+        symbol: String,
+        interval: String,
+        isSampling: () -> Boolean = { false }
+    ): Flow<MarketUpdate> {
         return callbackFlow {
             Log.d(TAG, "Creating market update WebSocket flow for $symbol with interval $interval")
+            val decoder = MarketFrameDecoder(TAG)
+            // Live bars are persisted once they close, so the store never lags behind the stream
+            var formingCandle: Candle? = null
 
             activeStreamSymbol = symbol
             activeStreamInterval = interval
             isStreamActive = true
 
+            // The hub reopens dropped sockets; on reopen the bars missed meanwhile are fetched
+            // and sent first, with live updates held back until they are through
+            val resumeLock = Any()
+            var disconnected = false
+            var heldBack: MutableList<MarketUpdate>? = null
+            var skippedFrames = false
+            var lastSampleAt = 0L
+
+            fun deliver(update: MarketUpdate) {
+                if (update is MarketUpdate.CandleUpdate) {
+                    val previous = formingCandle
+                    if (previous != null && previous.time < update.data.time) {
+                        storeScope.launch { candleStore.save(symbol, interval, previous) }
+                    }
+                    formingCandle = update.data
+                }
+                trySend(update)
+            }
+
+            fun resume(since: Candle) {
+                launch(Dispatchers.IO) {
+                    val missed = try {
+                        getHistoricalCandles(symbol, interval, Date(since.time * 1000), Date())
+                    } catch (e: Exception) {
+                        Log.w(TAG, "Could not fetch candles missed by the $symbol stream", e)
+                        null
+                    } ?: emptyList()
+                    Log.d(TAG, "Resumed $symbol stream, backfilling ${missed.size} candles since ${since.time}")
+                    synchronized(resumeLock) {
+                        missed.forEach { deliver(MarketUpdate.CandleUpdate(it)) }
+                        heldBack?.forEach { deliver(it) }
+                        heldBack = null
+                    }
+                }
+            }
+
             val listener = object : WebSocketListener() {
                 override fun onOpen(webSocket: WebSocket, response: okhttp3.Response) {
                     Log.d(TAG, "Market update WebSocket opened for $symbol")
+                    isStreamActive = true
+                    synchronized(resumeLock) {
+                        val since = formingCandle
+                        if (disconnected && since != null && heldBack == null) {
+                            heldBack = mutableListOf()
+                            resume(since)
+                        }
+                        disconnected = false
+                    }
                 }
 
                 override fun onMessage(webSocket: WebSocket, text: String) {
-                    Log.d(TAG, "Market update WebSocket message: $text")
-                    try {
-                        val jsonObject = gson.fromJson(text, JsonObject::class.java)
-                        if (jsonObject.has("type") && jsonObject.get("type").asString == "price") {
-                            val tickData = parseTickData(text)
-                            if (tickData != null) {
-                                trySend(MarketUpdate.Tick(tickData)).isSuccess
-                            }
-                        } else {
-                            val candle = parseCandleData(text)
-                            if (candle != null) {
-                                trySend(MarketUpdate.CandleUpdate(candle)).isSuccess
-                            }
+                    if (isSampling()) {
+                        synchronized(resumeLock) { skippedFrames = true }
+                        val now = SystemClock.elapsedRealtime()
+                        if (now - lastSampleAt < SAMPLE_INTERVAL_MS) return
+                        lastSampleAt = now
+                        // Only the price; a bar folded after skipped frames could be persisted stale
+                        (decoder.decode(text) as? MarketUpdate.Tick)?.let { trySend(it) }
+                        return
+                    }
+                    val update = decoder.decode(text) ?: return
+                    synchronized(resumeLock) {
+                        val since = formingCandle
+                        if (skippedFrames && since != null && heldBack == null) {
+                            heldBack = mutableListOf()
+                            resume(since)
                         }
-                    } catch (e: Exception) {
-                        Log.e(TAG, "Error parsing market update message: $text", e)
+                        skippedFrames = false
+                        val pending = heldBack
+                        if (pending != null) pending.add(update) else deliver(update)
                     }
                 }
 
                 override fun onClosed(webSocket: WebSocket, code: Int, reason: String) {
                     Log.d(TAG, "Market update WebSocket closed for $symbol: $reason")
                     isStreamActive = false
+                    synchronized(resumeLock) { disconnected = true }
                 }
 
                 override fun onFailure(webSocket: WebSocket, t: Throwable, response: okhttp3.Response?) {
-                    Log.e(TAG, "Market update WebSocket failure for $symbol", t)
+                    Log.e(TAG, "Market update WebSocket failure for $symbol, waiting for reconnect", t)
                     isStreamActive = false
+                    synchronized(resumeLock) { disconnected = true }
                 }
             }
 
@@ -127,6 +203,9 @@ class MarketDataRepository(
 
             awaitClose {
                 Log.d(TAG, "Market update flow closed for $symbol")
+                formingCandle?.let { candle ->
+                    storeScope.launch { candleStore.save(symbol, interval, candle) }
+                }
                 isStreamActive = false
                 activeStreamSymbol = null
                 activeStreamInterval = null
@@ -161,116 +240,137 @@ class MarketDataRepository(
 
     fun getActiveStreamInfo(): Pair<String?, String?> = Pair(activeStreamSymbol, activeStreamInterval)
 
-    private fun parseTickData(text: String): TickData? {
-        return try {
-            val jsonObject = gson.fromJson(text, JsonObject::class.java)
-            Log.d(TAG, "Parsing tick data JSON: $jsonObject")
+    /**
+     * Returns the candles of [startTime, endTime], serving what it can from the on-device store
+     * and only fetching the missing ranges (plus the still-forming latest bar) from the backend.
+     * Null means a fetch failed, as opposed to an empty list for a range the backend has no bars
+     * in, so callers never get a range with holes in it. With [servePartial] whatever is stored
+     * is returned instead when some fetch fails, and null only if nothing is stored for the range.
+     */
+    suspend fun getHistoricalCandles(
+        symbol: String,
+        interval: String,
+        startTime: Date,
+        endTime: Date,
+        servePartial: Boolean = false
+    ): List<Candle>? = withContext(Dispatchers.IO) {
+        val fromSeconds = startTime.time / 1000
+        val toSeconds = endTime.time / 1000
+
+        val stepSeconds = CandleIntervals.seconds(interval)
+        val stored = candleStore.getRange(symbol, interval, fromSeconds, toSeconds)
+        val historyStart = candleStore.historyStart(symbol, interval)
+        val gaps = candleStore.findGaps(stored, fromSeconds, toSeconds, stepSeconds, historyStart)
+        if (gaps.isEmpty()) {
+            Log.d(TAG, "Serving ${stored.size} candles for $symbol $interval from the local store")
+            return@withContext stored
+        }
+
+        val fetchedAll = mutableListOf<Candle>()
+        var failed = false
+        for (gap in gaps) {
+            val fetched = fetchHistoricalCandles(symbol, interval, Date(gap.from * 1000), Date(gap.to * 1000))
             when {
-                jsonObject.has("type") && jsonObject.get("type").asString == "price" -> {
-                    val price = jsonObject.get("price")?.asDouble ?: 0.0
-                    val change = jsonObject.get("change")?.asDouble ?: 0.0
-                    TickData(price, change)
-                }
-                jsonObject.has("price") -> {
-                    val price = jsonObject.get("price").asDouble
-                    val change = jsonObject.get("change")?.asDouble ?: 0.0
-                    TickData(price, change)
-                }
-                jsonObject.has("p") -> {
-                    val price = jsonObject.get("p").asDouble
-                    val change = jsonObject.get("c")?.asDouble ?: 0.0
-                    TickData(price, change)
-                }
-                else -> {
-                    Log.w(TAG, "Unknown tick data format: $text")
-                    null
+                fetched == null -> failed = true
+                fetched.isNotEmpty() -> {
+                    candleStore.save(symbol, interval, fetched)
+                    fetchedAll.addAll(fetched)
                 }
             }
-        } catch (e: Exception) {
-            Log.e(TAG, "Error parsing tick data JSON: $text", e)
-            null
         }
-    }
 
-    private fun parseCandleData(text: String): Candle? {
-        return try {
-            val jsonObject = gson.fromJson(text, JsonObject::class.java)
-            Log.d(TAG, "Parsing candle data JSON: $jsonObject")
-            when {
-                jsonObject.has("type") && jsonObject.get("type").asString == "candle" -> {
-                    val ohlcv = jsonObject.getAsJsonObject("ohlcv")
-                    parseCandleFromOhlcv(ohlcv)
-                }
-                jsonObject.has("ohlcv") -> {
-                    val ohlcv = jsonObject.getAsJsonObject("ohlcv")
-                    parseCandleFromOhlcv(ohlcv)
-                }
-                jsonObject.has("open_time") && jsonObject.has("open") -> {
-                    Candle(
-                        time = jsonObject.get("open_time").asLong / 1000,
-                        open = jsonObject.get("open").asDouble,
-                        high = jsonObject.get("high").asDouble,
-                        low = jsonObject.get("low").asDouble,
-                        close = jsonObject.get("close").asDouble,
-                        volume = jsonObject.get("volume")?.asDouble ?: 0.0
-                    )
-                }
-                else -> {
-                    Log.w(TAG, "Unknown candle data format: $text")
-                    null
-                }
+        // A whole window older than every stored bar that comes back empty has found where the
+        // series begins; remember it so the range before it is not requested again for a while
+        if (stored.isEmpty() && !failed && fetchedAll.isEmpty()) {
+            val earliestStored = candleStore.firstStoredTime(symbol, interval)
+            candleStore.historyStartAfter(stored, fetchedAll, toSeconds, earliestStored)?.let {
+                candleStore.markNoHistoryBefore(symbol, interval, it)
             }
-        } catch (e: Exception) {
-            Log.e(TAG, "Error parsing candle data JSON: $text", e)
-            null
+        }
+
+        val candles = if (fetchedAll.isNotEmpty()) candleStore.getRange(symbol, interval, fromSeconds, toSeconds) else stored
+        when {
+            !failed -> candles
+            servePartial && candles.isNotEmpty() -> {
+                Log.w(TAG, "Serving ${candles.size} stored $symbol $interval candles, some ranges failed to load")
+                candles
+            }
+            else -> null
         }
     }
 
-    private fun parseCandleFromOhlcv(ohlcv: JsonObject?): Candle? {
-        return if (ohlcv != null) {
-            try {
-                Candle(
-                    time = ohlcv.get("open_time")?.asLong?.div(1000) ?: 0L,
-                    open = ohlcv.get("open")?.asDouble ?: 0.0,
-                    high = ohlcv.get("high")?.asDouble ?: 0.0,
-                    low = ohlcv.get("low")?.asDouble ?: 0.0,
-                    close = ohlcv.get("close")?.asDouble ?: 0.0,
-                    volume = ohlcv.get("volume")?.asDouble ?: 0.0
-                )
-            } catch (e: Exception) {
-                Log.e(TAG, "Error parsing OHLCV object: $ohlcv", e)
-                null
+    /**
+     * Fetches [startTime, endTime] as backend-page-sized windows, up to [HISTORY_PARALLELISM]
+     * at a time, and emits the windows newest first. Each window is emitted as soon as it and
+     * every newer window have arrived, so collectors can prepend them in order.
+     *
+     * An empty window means the series begins after it: the flow completes there and the older
+     * windows are cancelled. A window that cannot be fetched fails the flow with an IOException,
+     * so collectors never prepend across a hole.
+     */
+    fun getHistoricalCandlesInWindows(
+        symbol: String,
+        interval: String,
+        startTime: Date,
+        endTime: Date
+    ): Flow<List<Candle>> = channelFlow {
+        val windows = HistoryRangePlanner.plan(
+            startTime.time / 1000,
+            endTime.time / 1000,
+            CandleIntervals.seconds(interval)
+        )
+        Log.d(TAG, "Fetching ${windows.size} history windows for $symbol $interval")
+
+        val permits = Semaphore(HISTORY_PARALLELISM)
+        val pages = windows.map { window ->
+            async {
+                permits.withPermit {
+                    // Once a window comes back empty, the series' start is stored and the older
+                    // windows still waiting for a permit are answered from the store without a request
+                    getHistoricalCandles(symbol, interval, Date(window.from * 1000), Date(window.to * 1000))
+                        ?: throw IOException("Could not fetch $symbol $interval history up to ${window.to}")
+                }
             }
-        } else {
-            Log.w(TAG, "OHLCV object is null")
-            null
+        }
+        for ((index, page) in pages.withIndex()) {
+            val candles = page.await()
+            if (candles.isEmpty()) {
+                Log.d(TAG, "No $symbol $interval history up to ${windows[index].to}, skipping older windows")
+                pages.forEach { it.cancel() }
+                break
+            }
+            send(candles)
         }
     }
 
-    suspend fun getHistoricalCandles(
+    /**
+     * One page of candles from the backend, or null if the request failed.
+     */
+    private suspend fun fetchHistoricalCandles(
         symbol: String,
         interval: String,
         startTime: Date,
         endTime: Date
-    ): List<Candle> = withContext(Dispatchers.IO) {
-        val formattedStart = apiDateFormat.format(startTime)
-        val formattedEnd = apiDateFormat.format(endTime)
+    ): List<Candle>? = withContext(Dispatchers.IO) {
+        // SimpleDateFormat is not thread-safe and history windows are fetched concurrently
+        val formattedStart = synchronized(apiDateFormat) { apiDateFormat.format(startTime) }
+        val formattedEnd = synchronized(apiDateFormat) { apiDateFormat.format(endTime) }
 
         Log.d(TAG, "Fetching historical candles for $symbol, interval: $interval, start: $formattedStart, end: $formattedEnd")
 
         return@withContext try {
             val response = apiService.getMarketData(symbol, interval, formattedStart, formattedEnd, 1, 1000).execute()
 
-            if (response.isSuccessful) {
-                val body = response.body()
-                Log.d(TAG, "API Response successful, data size: ${body?.data?.size}")
+            val data = response.body()?.data
+            if (response.isSuccessful && data != null) {
+                Log.d(TAG, "API Response successful, data size: ${data.size}")
 
-                body?.data?.map { entity ->
+                data.map { entity ->
                     val timestampMillis = when {
                         entity.timestamp is Date -> entity.timestamp.time
                         else -> {
                             try {
-                                apiDateFormat.parse(entity.timestamp.toString())?.time ?: 0L
+                                synchronized(apiDateFormat) { apiDateFormat.parse(entity.timestamp.toString()) }?.time ?: 0L
                             } catch (e: Exception) {
                                 Log.e(TAG, "Failed to parse timestamp: ${entity.timestamp}", e)
                                 0L
@@ -286,15 +386,19 @@ class MarketDataRepository(
                         close = entity.close,
                         volume = entity.volume
                     )
-                } ?: emptyList()
+                }
+            } else if (response.isSuccessful) {
+                // A page without data says nothing about the range; don't take it for "no bars"
+                Log.e(TAG, "API Response without data for $symbol $interval")
+                null
             } else {
                 Log.e(TAG, "API Error: ${response.code()} - ${response.message()}")
                 Log.e(TAG, "Error body: ${response.errorBody()?.string()}")
-                emptyList()
+                null
             }
         } catch (e: Exception) {
             Log.e(TAG, "Exception in getHistoricalCandles", e)
-            emptyList()
+            null
         }
     }
 
@@ -350,9 +454,8 @@ class MarketDataRepository(
             // IMPORTANT: Replace "http://your_backend_ip:port" with your actual backend URL
             val sseUrl = "https://stable-wholly-crappie.ngrok-free.app/api/v1/analyze/trendlines/progress/sse/$analysisId"
 
-            val sseClient = OkHttpClient.Builder()
-                .readTimeout(0, java.util.concurrent.TimeUnit.MINUTES) // Essential for long-lived connections
-                .build()
+            // Shares the app's connection pool; no read timeout for the long-lived stream
+            val sseClient = NetworkModule.getStreamingClient()
 
             val request = Request.Builder().url(sseUrl).build()
 
@@ -404,4 +507,9 @@ class MarketDataRepository(
         activeStreamSymbol = null
         activeStreamInterval = null
     }
+
+    companion object {
+        private const val HISTORY_PARALLELISM = 4
+        private const val SAMPLE_INTERVAL_MS = 5_000L
+    }
 }
\ No newline at end of file
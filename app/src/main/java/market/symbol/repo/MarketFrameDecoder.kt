@@ -0,0 +1,162 @@
+package market.symbol.repo
+
+import android.util.Log
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import java.io.StringReader
+
+/**
+ * Single-pass decoder for market stream frames.
+ *
+ * Reads each frame once with a pull parser straight into primitive scratch fields and only
+ * allocates the resulting [TickData] or [Candle], instead of building a JsonObject tree per
+ * frame (and a second one per parse step). Understands the current wire formats
+ * (`{"type":"price",...}`, `{"type":"candle","ohlcv":{...}}`) as well as the legacy
+ * `p`/`c` tick and flat `open_time` candle shapes.
+ *
+ * Use one instance per stream. Frames normally arrive on the socket's single reader thread;
+ * [decode] is synchronized only because the hub may replay the last frame from the
+ * subscribing thread, so the lock is uncontended in practice.
+ */
+class MarketFrameDecoder(private val TAG: String = "MarketFrameDecoder") {
+
+    private var type: String? = null
+
+    private var hasPrice = false
+    private var price = 0.0
+    private var change = 0.0
+    private var hasLegacyPrice = false
+    private var legacyPrice = 0.0
+    private var legacyChange = 0.0
+
+    private var hasOhlcv = false
+    private var hasFlatCandle = false
+    private var openTime = 0L
+    private var open = 0.0
+    private var high = 0.0
+    private var low = 0.0
+    private var close = 0.0
+    private var volume = 0.0
+
+    @Synchronized
+    fun decode(text: String): MarketUpdate? {
+        reset()
+        try {
+            JsonReader(StringReader(text)).use { reader ->
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) return null
+                reader.beginObject()
+                while (reader.hasNext()) {
+                    when (reader.nextName()) {
+                        "type" -> type = readString(reader)
+                        "price" -> { price = readDouble(reader); hasPrice = true }
+                        "change" -> change = readDouble(reader)
+                        "p" -> { legacyPrice = readDouble(reader); hasLegacyPrice = true }
+                        "c" -> legacyChange = readDouble(reader)
+                        "ohlcv" -> hasOhlcv = readOhlcv(reader)
+                        "open_time" -> { openTime = readLong(reader); hasFlatCandle = true }
+                        "open" -> open = readDouble(reader)
+                        "high" -> high = readDouble(reader)
+                        "low" -> low = readDouble(reader)
+                        "close" -> close = readDouble(reader)
+                        "volume" -> volume = readDouble(reader)
+                        else -> reader.skipValue()
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Error decoding market frame: $text", e)
+            return null
+        }
+
+        return when {
+            type == "price" -> tick()
+            type == "candle" || hasOhlcv || hasFlatCandle -> candle()
+            hasPrice || hasLegacyPrice -> tick()
+            else -> {
+                Log.w(TAG, "Unknown market frame format: $text")
+                null
+            }
+        }
+    }
+
+    private fun tick(): MarketUpdate? = when {
+        hasPrice -> MarketUpdate.Tick(TickData(price, change))
+        hasLegacyPrice -> MarketUpdate.Tick(TickData(legacyPrice, legacyChange))
+        else -> MarketUpdate.Tick(TickData(0.0, change))
+    }
+
+    private fun candle(): MarketUpdate? {
+        if (!hasOhlcv && !hasFlatCandle) {
+            Log.w(TAG, "Candle frame without OHLCV data")
+            return null
+        }
+        return MarketUpdate.CandleUpdate(Candle(openTime / 1000, open, high, low, close, volume))
+    }
+
+    /**
+     * Reads the nested `ohlcv` object into the same scratch fields used by flat candles.
+     * Returns false if the value was null.
+     */
+    private fun readOhlcv(reader: JsonReader): Boolean {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue()
+            return false
+        }
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "open_time" -> openTime = readLong(reader)
+                "open" -> open = readDouble(reader)
+                "high" -> high = readDouble(reader)
+                "low" -> low = readDouble(reader)
+                "close" -> close = readDouble(reader)
+                "volume" -> volume = readDouble(reader)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+        return true
+    }
+
+    private fun readDouble(reader: JsonReader): Double {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0.0
+        }
+        return reader.nextDouble()
+    }
+
+    private fun readLong(reader: JsonReader): Long {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0L
+        }
+        return reader.nextLong()
+    }
+
+    private fun readString(reader: JsonReader): String? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        return reader.nextString()
+    }
+
+    private fun reset() {
+        type = null
+        hasPrice = false
+        price = 0.0
+        change = 0.0
+        hasLegacyPrice = false
+        legacyPrice = 0.0
+        legacyChange = 0.0
+        hasOhlcv = false
+        hasFlatCandle = false
+        openTime = 0L
+        open = 0.0
+        high = 0.0
+        low = 0.0
+        close = 0.0
+        volume = 0.0
+    }
+}
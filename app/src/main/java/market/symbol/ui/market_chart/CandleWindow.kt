@@ -0,0 +1,211 @@
+package market.symbol.ui.market_chart
+
+import com.tradingview.lightweightcharts.api.chart.models.color.IntColor
+import com.tradingview.lightweightcharts.api.series.models.CandlestickData
+import com.tradingview.lightweightcharts.api.series.models.HistogramData
+import com.tradingview.lightweightcharts.api.series.models.Time
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Level-of-detail plan for sending a long candle history to the chart.
+ *
+ * Only the window around the viewport (the visible range plus a margin on each side) is sent bar
+ * for bar; when so many bars are visible that they would be thinner than a pixel, they are merged
+ * in small groups. Everything outside the window is merged into coarse buckets that keep the
+ * shape of the history while the user scrolls towards it. A merged bar keeps the first open, the
+ * last close, the highest high and the lowest low of its bucket, so no extreme disappears at any
+ * zoom, and its volume is the bucket's total.
+ *
+ * Buckets are aligned to multiples of their duration, so a bar lands in the same bucket across
+ * recomputes and the candle and volume series always merge the same bars. A merged bar is stamped
+ * with the time of its first bar, which keeps times strictly increasing. A window is an immutable
+ * plan: downsampling depends only on the bars it is given.
+ */
+internal class CandleWindow(
+    val firstTime: Long,
+    val lastTime: Long,
+    val barSeconds: Long,
+    // Full-detail range, inclusive, in seconds; fullTo is open-ended while the window reaches the last bar
+    val fullFrom: Long,
+    val fullTo: Long,
+    val innerFactor: Long,
+    val outerFactor: Long,
+    val margin: Long
+) {
+    val followsEnd: Boolean
+        get() = fullTo == Long.MAX_VALUE
+
+    /**
+     * Whether [other] merges bars into the same buckets, so data downsampled with it is still valid.
+     * The history bounds are left out: they move with every prepended chunk and live bar.
+     */
+    fun sameLayout(other: CandleWindow?): Boolean =
+        other != null && barSeconds == other.barSeconds && fullFrom == other.fullFrom &&
+            fullTo == other.fullTo && innerFactor == other.innerFactor && outerFactor == other.outerFactor
+
+    /**
+     * Whether this window still serves a viewport of [visibleFrom]..[visibleTo]: the viewport is
+     * clear of the window's edges and needs the same level of detail.
+     */
+    fun covers(visibleFrom: Long, visibleTo: Long): Boolean {
+        val guard = margin / 2
+        val leftOk = fullFrom <= firstTime || visibleFrom >= fullFrom + guard
+        val rightOk = followsEnd || visibleTo <= fullTo - guard
+        return leftOk && rightOk && innerFactor == detailFactor(visibleFrom, visibleTo, barSeconds)
+    }
+
+    fun downsampleCandles(data: List<CandlestickData>): List<CandlestickData> {
+        val out = ArrayList<CandlestickData>(min(data.size, MAX_VISIBLE_POINTS * 4 + MAX_OUTSIDE_POINTS))
+        var start = 0
+        while (start < data.size) {
+            val key = bucketKey(seconds(data[start].time))
+            var end = start + 1
+            while (end < data.size && bucketKey(seconds(data[end].time)) == key) end++
+            out.add(mergeCandles(data, start, end))
+            start = end
+        }
+        return out
+    }
+
+    /**
+     * Merges [data] into the same buckets as [candles]; a merged volume bar gets [upColor] or
+     * [downColor] after the direction of the bucket's merged candle.
+     */
+    fun downsampleVolumes(
+        data: List<HistogramData>,
+        candles: List<CandlestickData>,
+        upColor: IntColor,
+        downColor: IntColor
+    ): List<HistogramData> {
+        val out = ArrayList<HistogramData>(min(data.size, MAX_VISIBLE_POINTS * 4 + MAX_OUTSIDE_POINTS))
+        var start = 0
+        // Bucket keys never decrease with time, so the candles are walked once alongside
+        var candleStart = 0
+        while (start < data.size) {
+            val key = bucketKey(seconds(data[start].time))
+            var end = start + 1
+            while (end < data.size && bucketKey(seconds(data[end].time)) == key) end++
+            while (candleStart < candles.size && bucketKey(seconds(candles[candleStart].time)) < key) candleStart++
+            var candleEnd = candleStart
+            while (candleEnd < candles.size && bucketKey(seconds(candles[candleEnd].time)) == key) candleEnd++
+            out.add(mergeVolumes(data, start, end, bucketUp(candles, candleStart, candleEnd), upColor, downColor))
+            start = end
+            candleStart = candleEnd
+        }
+        return out
+    }
+
+    /**
+     * The merged bar for the bucket holding the last bar, to update the chart with a live bar.
+     */
+    fun lastCandle(data: List<CandlestickData>): CandlestickData {
+        val key = bucketKey(seconds(data.last().time))
+        var start = data.size - 1
+        while (start > 0 && bucketKey(seconds(data[start - 1].time)) == key) start--
+        return mergeCandles(data, start, data.size)
+    }
+
+    /**
+     * The merged volume bar for the bucket holding the last bar, colored like [lastCandle].
+     */
+    fun lastVolume(
+        data: List<HistogramData>,
+        candles: List<CandlestickData>,
+        upColor: IntColor,
+        downColor: IntColor
+    ): HistogramData {
+        val key = bucketKey(seconds(data.last().time))
+        var start = data.size - 1
+        while (start > 0 && bucketKey(seconds(data[start - 1].time)) == key) start--
+        var candleEnd = candles.size
+        while (candleEnd > 0 && bucketKey(seconds(candles[candleEnd - 1].time)) > key) candleEnd--
+        var candleStart = candleEnd
+        while (candleStart > 0 && bucketKey(seconds(candles[candleStart - 1].time)) == key) candleStart--
+        return mergeVolumes(data, start, data.size, bucketUp(candles, candleStart, candleEnd), upColor, downColor)
+    }
+
+    // Direction of the merged candle of candles[start, end), or null if the bucket has no candle
+    private fun bucketUp(candles: List<CandlestickData>, start: Int, end: Int): Boolean? =
+        if (start < end) candles[end - 1].close >= candles[start].open else null
+
+    private fun mergeCandles(data: List<CandlestickData>, start: Int, end: Int): CandlestickData {
+        val first = data[start]
+        if (end - start == 1) return first
+        var high = first.high
+        var low = first.low
+        for (i in start + 1 until end) {
+            val bar = data[i]
+            high = max(high, bar.high)
+            low = min(low, bar.low)
+        }
+        val close = data[end - 1].close
+        return CandlestickData(first.time, first.open, high, low, close)
+    }
+
+    private fun mergeVolumes(
+        data: List<HistogramData>,
+        start: Int,
+        end: Int,
+        up: Boolean?,
+        upColor: IntColor,
+        downColor: IntColor
+    ): HistogramData {
+        val first = data[start]
+        if (end - start == 1) return first
+        var total = 0f
+        for (i in start until end) {
+            total += data[i].value
+        }
+        val color = when (up) {
+            true -> upColor
+            false -> downColor
+            null -> data[end - 1].color
+        }
+        return HistogramData(first.time, total, color)
+    }
+
+    override fun toString(): String =
+        "CandleWindow(full=$fullFrom..$fullTo, inner=$innerFactor, outer=$outerFactor, bar=$barSeconds)"
+
+    private fun bucketKey(time: Long): Long {
+        val factor = if (time in fullFrom..fullTo) innerFactor else outerFactor
+        if (factor == 1L) return time
+        val bucket = factor * barSeconds
+        return time - Math.floorMod(time, bucket)
+    }
+
+    companion object {
+        // Bars in the viewport before they are merged; beyond this they'd be thinner than a pixel
+        private const val MAX_VISIBLE_POINTS = 1000
+        // Points spent on all the history outside the window
+        private const val MAX_OUTSIDE_POINTS = 500
+        // Full detail extends this many viewport widths past each side of the viewport
+        private const val MARGIN_SCREENS = 1
+        private const val MIN_MARGIN_BARS = 200
+
+        fun plan(firstTime: Long, lastTime: Long, barSeconds: Long, visibleFrom: Long, visibleTo: Long): CandleWindow {
+            val span = max(visibleTo - visibleFrom, barSeconds)
+            val innerFactor = detailFactor(visibleFrom, visibleTo, barSeconds)
+            val margin = max(span * MARGIN_SCREENS, MIN_MARGIN_BARS * barSeconds)
+            val fullFrom = max(visibleFrom - margin, firstTime)
+            val fullTo = if (visibleTo + margin >= lastTime) Long.MAX_VALUE else visibleTo + margin
+
+            val outside = (fullFrom - firstTime) + (if (fullTo == Long.MAX_VALUE) 0 else lastTime - fullTo)
+            val outerFactor = max(innerFactor, factor(outside / barSeconds, MAX_OUTSIDE_POINTS))
+            return CandleWindow(firstTime, lastTime, barSeconds, fullFrom, fullTo, innerFactor, outerFactor, margin)
+        }
+
+        fun seconds(time: Time): Long = (time as? Time.Utc)?.timestamp ?: 0L
+
+        private fun detailFactor(visibleFrom: Long, visibleTo: Long, barSeconds: Long): Long =
+            factor(max(visibleTo - visibleFrom, 0L) / barSeconds + 1, MAX_VISIBLE_POINTS)
+
+        // Smallest power of two that brings [bars] within [budget]; powers keep buckets nested across zoom levels
+        private fun factor(bars: Long, budget: Int): Long {
+            var factor = 1L
+            while (bars / factor > budget) factor *= 2
+            return factor
+        }
+    }
+}
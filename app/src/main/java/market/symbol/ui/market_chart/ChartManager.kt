@@ -2,6 +2,7 @@ package market.symbol.ui.market_chart
 
 import android.content.Context
 import android.graphics.Color
+import android.os.SystemClock
 import androidx.core.content.ContextCompat
 import com.claw.ai.R
 import com.claw.ai.databinding.MarketChartBinding
@@ -33,9 +34,12 @@ import com.tradingview.lightweightcharts.api.series.models.HistogramData
 import com.tradingview.lightweightcharts.api.series.models.PriceScaleId
 import com.tradingview.lightweightcharts.api.series.models.SeriesMarker
 import com.tradingview.lightweightcharts.api.series.models.Time
+import com.tradingview.lightweightcharts.api.series.models.TimeRange
 import market.symbol.model.AnalysisResult
 import market.symbol.repo.Candle
+import timber.log.Timber
 import java.util.Locale
+import kotlin.math.max
 
 class ChartManager(
     private val context: Context,
@@ -46,6 +50,14 @@ class ChartManager(
     private var volumeSeries: SeriesApi? = null
     private var timeScaleApi: TimeScaleApi? = null
 
+    // Full history as last set plus live bars; the chart only gets a windowed view of long ones
+    private val candles = ArrayList<CandlestickData>()
+    private val volumes = ArrayList<HistogramData>()
+    private var window: CandleWindow? = null
+    private var visibleFrom = 0L
+    private var visibleTo = 0L
+    private var restoreSettlesAt = 0L
+
     // State for tracking analysis drawings
     private val analysisMarkers = mutableListOf<SeriesMarker>()
     private val analysisPriceLines = mutableListOf<PriceLine>()
@@ -111,23 +123,127 @@ class ChartManager(
 
         timeScaleApi?.subscribeVisibleTimeRangeChange { timeRange ->
             timeRange?.let {
-                onVisibleTimeRangeChanged(it.from as Time.Utc, it.to as Time.Utc)
+                val from = it.from as Time.Utc
+                val to = it.to as Time.Utc
+                onViewportChanged(from.timestamp, to.timestamp)
+                onVisibleTimeRangeChanged(from, to)
             }
         }
     }
 
     /**
-     * UPDATED: This function now accepts a pre-processed list of CandlestickData.
+     * Sets the candle history. Histories longer than [FULL_DETAIL_LIMIT] bars are sent as a
+     * [CandleWindow] around the viewport, which is recomputed as the user scrolls and zooms.
      */
     fun setCandleData(candlestickData: List<CandlestickData>) {
-        candleSeries?.setData(candlestickData)
+        candles.clear()
+        candles.addAll(candlestickData)
+        if (candles.isEmpty()) {
+            // New symbol or interval; the old viewport means nothing for the next history
+            visibleFrom = 0L
+            visibleTo = 0L
+        }
+
+        val previous = window
+        val current = planWindow()
+        window = current
+        // A new chunk moves the history bounds but usually leaves the buckets as they were
+        val sameBuckets = if (current == null) previous == null else current.sameLayout(previous)
+        if (!sameBuckets) {
+            // Different buckets, so the volumes have to be re-merged to line up with the candles
+            pushWindow()
+        } else {
+            candleSeries?.setData(current?.downsampleCandles(candles) ?: candles)
+        }
     }
 
     /**
-     * UPDATED: This function now accepts a pre-processed list of HistogramData.
+     * Sets the volume history, merged with the same buckets as the candles.
      */
     fun setVolumeData(volumeData: List<HistogramData>) {
-        volumeSeries?.setData(volumeData)
+        volumes.clear()
+        volumes.addAll(volumeData)
+        volumeSeries?.setData(window?.downsampleVolumes(volumes, candles, upColor, downColor) ?: volumes)
+    }
+
+    /**
+     * Updates a single bar in place (same time) or appends it (newer time) without
+     * re-sending the whole series to the chart.
+     */
+    fun updateBar(candle: CandlestickData, volume: HistogramData) {
+        mergeLiveBar(candles, candle) { it.time }
+        mergeLiveBar(volumes, volume) { it.time }
+        val current = window
+        if (current == null) {
+            candleSeries?.update(candle)
+            volumeSeries?.update(volume)
+            return
+        }
+        // Off-screen bars reach the chart with the next recompute
+        if (!current.followsEnd || candles.isEmpty() || volumes.isEmpty()) return
+        candleSeries?.update(current.lastCandle(candles))
+        volumeSeries?.update(current.lastVolume(volumes, candles, upColor, downColor))
+    }
+
+    private inline fun <T> mergeLiveBar(bars: MutableList<T>, bar: T, timeOf: (T) -> Time) {
+        val time = CandleWindow.seconds(timeOf(bar))
+        val lastTime = if (bars.isEmpty()) Long.MIN_VALUE else CandleWindow.seconds(timeOf(bars.last()))
+        when {
+            time == lastTime -> bars[bars.size - 1] = bar
+            time > lastTime -> bars.add(bar)
+        }
+    }
+
+    private fun onViewportChanged(from: Long, to: Long) {
+        // Until the restored range settles, reports describe the shifted data, not the user's viewport
+        if (SystemClock.uptimeMillis() < restoreSettlesAt) return
+        visibleFrom = from
+        visibleTo = to
+        val current = window ?: return
+        if (current.covers(from, to)) return
+        window = planWindow()
+        pushWindow()
+    }
+
+    private fun planWindow(): CandleWindow? {
+        if (candles.size <= FULL_DETAIL_LIMIT) return null
+        val first = CandleWindow.seconds(candles.first().time)
+        val last = CandleWindow.seconds(candles.last().time)
+        val barSeconds = estimateBarSeconds()
+        // Before the chart reports a viewport, assume it shows the latest bars
+        return if (visibleTo > visibleFrom && visibleTo >= first) {
+            CandleWindow.plan(first, last, barSeconds, visibleFrom, visibleTo)
+        } else {
+            CandleWindow.plan(first, last, barSeconds, last - DEFAULT_VISIBLE_BARS * barSeconds, last)
+        }
+    }
+
+    private fun pushWindow() {
+        val current = window
+        candleSeries?.setData(current?.downsampleCandles(candles) ?: candles)
+        volumeSeries?.setData(current?.downsampleVolumes(volumes, candles, upColor, downColor) ?: volumes)
+        Timber.d("Chart window: %d bars, %s", candles.size, current)
+
+        // Replacing the data shifts bar indices, so the viewport is put back by time; a viewport
+        // on the latest bar is left alone, the chart keeps following it by itself
+        if (visibleTo <= visibleFrom || candles.isEmpty() || visibleTo >= CandleWindow.seconds(candles.last().time)) return
+        try {
+            restoreSettlesAt = SystemClock.uptimeMillis() + RESTORE_SETTLE_MS
+            timeScaleApi?.setVisibleRange(TimeRange(Time.Utc(visibleFrom), Time.Utc(visibleTo)))
+        } catch (e: IllegalStateException) {
+            Timber.w(e, "Could not restore the visible range")
+        }
+    }
+
+    // Shortest gap between recent bars; gaps in the history only ever make others longer
+    private fun estimateBarSeconds(): Long {
+        var shortest = Long.MAX_VALUE
+        val from = max(1, candles.size - BAR_SAMPLE)
+        for (i in from until candles.size) {
+            val gap = CandleWindow.seconds(candles[i].time) - CandleWindow.seconds(candles[i - 1].time)
+            if (gap in 1 until shortest) shortest = gap
+        }
+        return if (shortest == Long.MAX_VALUE) 60L else shortest
     }
 
     fun scrollToRealTime() {
@@ -219,11 +335,11 @@ class ChartManager(
         candleSeries?.createPriceLine(bottomOptions)?.let { analysisPriceLines.add(it) }
     }
 
-    fun updateSparkline(sparklineArray: DoubleArray?) {
+    fun updateSparkline(sparklineArray: FloatArray?) {
         if (sparklineArray == null || sparklineArray.isEmpty()) return
         val chart = chartBinding.sparklineChart
         val entries =
-            sparklineArray.mapIndexed { index, value -> Entry(index.toFloat(), value.toFloat()) }
+            sparklineArray.mapIndexed { index, value -> Entry(index.toFloat(), value) }
         setupSparklineChart(chart, entries)
     }
 
@@ -253,4 +369,12 @@ class ChartManager(
         chart.setTouchEnabled(false)
         chart.invalidate()
     }
-}
\ No newline at end of file
+
+    companion object {
+        // Histories up to this many bars are cheap enough to send whole
+        private const val FULL_DETAIL_LIMIT = 3000
+        private const val DEFAULT_VISIBLE_BARS = 150L
+        private const val BAR_SAMPLE = 32
+        private const val RESTORE_SETTLE_MS = 300L
+    }
+}
@@ -0,0 +1,110 @@
+package market.symbol.ui.market_chart
+
+import android.view.Choreographer
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Pushes a large series to the chart over several frames, sized by how fast this device renders.
+ *
+ * Each frame shows more of the newest bars, growing the shown range towards older bars until it
+ * holds [TAIL_SIZE] bars, a few screens' worth; the next frame then shows the whole series at
+ * once. Every frame replaces the whole shown range, so growing it a chunk at a time through a
+ * long history would cost quadratic time on a slow device, where chunks are small.
+ *
+ * Chunk sizing is driven by frame intervals only: the chart draws in the WebView, off this
+ * thread, so timing the render call would only measure the serialization. Instead the chunk
+ * doubles after a frame that arrived on time and halves after a late one, whose lateness includes
+ * whatever the previous push cost the chart. A fast device fills the tail within a frame or two
+ * while a slow one keeps drawing and stays responsive.
+ *
+ * The render callback receives the shown range as a view of the submitted list, newest bar last,
+ * and must replace what the chart shows with it. Main thread only.
+ */
+class ChunkedRenderScheduler<T>(
+    private val render: (List<T>) -> Unit,
+    private val onComplete: () -> Unit = {}
+) {
+    private val choreographer = Choreographer.getInstance()
+    private val frameCallback = Choreographer.FrameCallback(::doFrame)
+
+    private var items: List<T> = emptyList()
+    private var shown = 0
+    private var lastFrameTimeNanos = 0L
+
+    // Shortest frame interval seen so far, taken as the display's frame period
+    private var framePeriodNanos = DEFAULT_FRAME_PERIOD_NANOS
+
+    // Bars added per frame; kept across submissions, it is a property of the device
+    private var chunkSize = FIRST_CHUNK
+
+    val isRendering: Boolean
+        get() = shown < items.size
+
+    /**
+     * Starts rendering [data], replacing anything still being rendered.
+     */
+    fun submit(data: List<T>) {
+        cancel()
+        if (data.isEmpty()) {
+            render(data)
+            onComplete()
+            return
+        }
+        items = data
+        shown = 0
+        choreographer.postFrameCallback(frameCallback)
+    }
+
+    /**
+     * Stops rendering; whatever was already pushed stays on the chart.
+     */
+    fun cancel() {
+        choreographer.removeFrameCallback(frameCallback)
+        items = emptyList()
+        shown = 0
+        lastFrameTimeNanos = 0L
+    }
+
+    private fun doFrame(frameTimeNanos: Long) {
+        trackFrame(frameTimeNanos)
+
+        val next = shown + chunkSize
+        val target = if (next >= TAIL_SIZE) items.size else min(items.size, next)
+        render(items.subList(items.size - target, items.size))
+        shown = target
+
+        if (shown < items.size) {
+            choreographer.postFrameCallback(frameCallback)
+        } else {
+            items = emptyList()
+            shown = 0
+            lastFrameTimeNanos = 0L
+            onComplete()
+        }
+    }
+
+    private fun trackFrame(frameTimeNanos: Long) {
+        if (lastFrameTimeNanos != 0L) {
+            val interval = frameTimeNanos - lastFrameTimeNanos
+            if (interval in MIN_FRAME_PERIOD_NANOS until framePeriodNanos) framePeriodNanos = interval
+            chunkSize = if (interval > framePeriodNanos * LATE_FRAME_FACTOR) {
+                max(chunkSize / 2, MIN_CHUNK)
+            } else {
+                min(chunkSize * 2, TAIL_SIZE)
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos
+    }
+
+    companion object {
+        private const val DEFAULT_FRAME_PERIOD_NANOS = 16_666_667L
+        // Guards against two callbacks in the same vsync being read as a 1000 Hz display
+        private const val MIN_FRAME_PERIOD_NANOS = 4_000_000L
+        private const val LATE_FRAME_FACTOR = 1.5
+        private const val FIRST_CHUNK = 200
+        private const val MIN_CHUNK = 50
+        // Bars shown in chunks before the rest is sent in one push; several screens at default zoom
+        private const val TAIL_SIZE = 1000
+    }
+}
@@ -0,0 +1,124 @@
+package market.symbol.ui.market_chart
+
+import android.os.SystemClock
+import kotlin.math.ceil
+import kotlin.math.max
+
+/**
+ * Schedules scroll-back history fetches ahead of the viewport.
+ *
+ * Fed with every visible time range reported by the chart, it tracks how fast the left edge
+ * is moving back in time and requests the next page while the loaded history still covers
+ * the time it takes to fetch one, instead of waiting for the user to reach the edge. Page
+ * size follows the bar interval and the scroll speed, so a fast fling over 1m bars gets a
+ * bigger page than a slow drag over daily bars.
+ *
+ * [fetchPage] completes with success(false) once the server has no older bars, success(true)
+ * while there may be more, and a failure if the page could not be fetched; after a failure the
+ * next page is only requested once [RETRY_DELAY_MS] has passed.
+ *
+ * Main thread only.
+ */
+class HistoryPrefetcher(
+    private val fetchPage: (pageSize: Int, onComplete: (Result<Boolean>) -> Unit) -> Unit
+) {
+    private var lastFrom = 0L
+    private var lastSampleAt = 0L
+
+    // Smoothed backward scroll speed, in chart seconds per wall-clock millisecond
+    private var velocity = 0.0
+
+    // Smoothed duration of a page fetch
+    private var fetchLatencyMs = DEFAULT_FETCH_LATENCY_MS
+    private var inFlight = false
+    private var exhausted = false
+    private var retryAt = 0L
+
+    // Bumped by reset(), so a page requested for the previous symbol or interval is ignored
+    private var generation = 0
+
+    /**
+     * Forgets the scroll state, e.g. when the symbol or interval changes.
+     */
+    fun reset() {
+        generation++
+        lastFrom = 0L
+        lastSampleAt = 0L
+        velocity = 0.0
+        inFlight = false
+        exhausted = false
+        retryAt = 0L
+    }
+
+    /**
+     * @param from left edge of the visible range, in seconds
+     * @param to right edge of the visible range, in seconds
+     * @param earliestLoaded open time of the oldest loaded bar, in seconds
+     * @param intervalMillis bar duration
+     */
+    fun onVisibleRangeChanged(from: Long, to: Long, earliestLoaded: Long, intervalMillis: Long) {
+        val now = SystemClock.uptimeMillis()
+        trackVelocity(from, now)
+        if (inFlight || exhausted || now < retryAt) return
+
+        val intervalSeconds = max(intervalMillis / 1000, 1L)
+        val visibleSpan = max(to - from, intervalSeconds)
+        val remaining = from - earliestLoaded
+
+        // History the viewport will consume while a page is in flight, with headroom
+        val consumedWhileFetching = (velocity * fetchLatencyMs * SAFETY_FACTOR).toLong()
+        val lead = max(consumedWhileFetching, (visibleSpan * MIN_LEAD_SCREENS).toLong())
+        if (remaining > lead) return
+
+        request(pageSize(visibleSpan, intervalSeconds), now)
+    }
+
+    private fun trackVelocity(from: Long, now: Long) {
+        if (lastSampleAt != 0L) {
+            val elapsed = now - lastSampleAt
+            if (elapsed > 0) {
+                // Only leftward movement pulls history; rightward scrolls and zooms decay the estimate
+                val sample = max(lastFrom - from, 0L).toDouble() / elapsed
+                velocity = if (elapsed > IDLE_RESET_MS) sample else velocity + SMOOTHING * (sample - velocity)
+            }
+        }
+        lastFrom = from
+        lastSampleAt = now
+    }
+
+    private fun pageSize(visibleSpan: Long, intervalSeconds: Long): Int {
+        // Cover the visible width plus what a fling moves through during two fetches
+        val span = visibleSpan * PAGE_SCREENS + velocity * fetchLatencyMs * 2
+        val bars = ceil(span / intervalSeconds).toInt()
+        return bars.coerceIn(MIN_PAGE_SIZE, MAX_PAGE_SIZE)
+    }
+
+    private fun request(pageSize: Int, startedAt: Long) {
+        inFlight = true
+        val requestGeneration = generation
+        fetchPage(pageSize) { result ->
+            if (requestGeneration != generation) return@fetchPage
+            inFlight = false
+            result.onSuccess { more ->
+                val took = SystemClock.uptimeMillis() - startedAt
+                fetchLatencyMs += SMOOTHING * (took - fetchLatencyMs)
+                // Nothing older on the server; stop asking until the next reset
+                if (!more) exhausted = true
+            }.onFailure {
+                retryAt = SystemClock.uptimeMillis() + RETRY_DELAY_MS
+            }
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_FETCH_LATENCY_MS = 800.0
+        private const val SAFETY_FACTOR = 2.0
+        private const val MIN_LEAD_SCREENS = 1.0
+        private const val PAGE_SCREENS = 3
+        private const val SMOOTHING = 0.3
+        private const val IDLE_RESET_MS = 500L
+        private const val MIN_PAGE_SIZE = 200
+        private const val MAX_PAGE_SIZE = 1000 // Backend page_size cap
+        private const val RETRY_DELAY_MS = 3000L
+    }
+}
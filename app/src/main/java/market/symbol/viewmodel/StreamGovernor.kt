@@ -0,0 +1,66 @@
+package market.symbol.viewmodel
+
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+
+/**
+ * Decides how much work a screen's live stream may do, following the screen's lifecycle.
+ *
+ * While the screen is started the stream is [Mode.LIVE]. On ON_STOP it drops to [Mode.SNAPSHOT]:
+ * the socket stays open but is only sampled (see MarketDataRepository.subscribeToMarketUpdates),
+ * and nothing is published to the UI. If the screen stays stopped for [pauseAfterMs] the stream
+ * is [Mode.PAUSED] and [onPause] releases it. On ON_START a paused stream is restarted through
+ * [onResume], which should catch up on what was missed before going live, and a snapshot stream
+ * publishes its state once through [onSnapshotEnd].
+ *
+ * Lifecycle callbacks and [scope] run on the main thread.
+ */
+class StreamGovernor(
+    private val scope: CoroutineScope,
+    private val pauseAfterMs: Long = DEFAULT_PAUSE_AFTER_MS,
+    private val onPause: () -> Unit,
+    private val onResume: () -> Unit,
+    private val onSnapshotEnd: () -> Unit
+) : DefaultLifecycleObserver {
+
+    enum class Mode { LIVE, SNAPSHOT, PAUSED }
+
+    @Volatile
+    var mode: Mode = Mode.LIVE
+        private set
+
+    val isLive: Boolean get() = mode == Mode.LIVE
+
+    private var pauseJob: Job? = null
+
+    override fun onStart(owner: LifecycleOwner) {
+        pauseJob?.cancel()
+        pauseJob = null
+        val previous = mode
+        mode = Mode.LIVE
+        when (previous) {
+            Mode.PAUSED -> onResume()
+            Mode.SNAPSHOT -> onSnapshotEnd()
+            Mode.LIVE -> Unit
+        }
+    }
+
+    override fun onStop(owner: LifecycleOwner) {
+        if (mode != Mode.LIVE) return
+        mode = Mode.SNAPSHOT
+        pauseJob = scope.launch {
+            delay(pauseAfterMs)
+            mode = Mode.PAUSED
+            onPause()
+        }
+    }
+
+    companion object {
+        // Long enough to survive a quick app switch without reconnecting
+        const val DEFAULT_PAUSE_AFTER_MS = 60_000L
+    }
+}
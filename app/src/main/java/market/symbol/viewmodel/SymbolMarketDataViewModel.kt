@@ -1,11 +1,15 @@
 package market.symbol.viewmodel
 
 import android.app.Application
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.Observer
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.google.firebase.auth.FirebaseAuth
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.BufferOverflow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -14,15 +18,18 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import market.symbol.model.AnalysisResult
 import market.symbol.repo.Candle
+import market.symbol.repo.CandleIntervals
+import market.symbol.repo.CandleSeries
 import market.symbol.repo.MarketDataRepository
 import market.symbol.repo.MarketUpdate
+import market.symbol.repo.TickData
 import timber.log.Timber
+import java.io.IOException
 import java.util.Calendar
 import java.util.Date
 import com.tradingview.lightweightcharts.api.series.models.CandlestickData as TradingViewCandlestickData
 import com.tradingview.lightweightcharts.api.series.models.HistogramData as TradingViewHistogramData
 
-import kotlinx.coroutines.delay
 import android.graphics.Color
 import androidx.lifecycle.viewModelScope
 // Aliases to avoid name conflicts with your own models if they exist
@@ -31,6 +38,7 @@ import com.tradingview.lightweightcharts.api.chart.models.color.IntColor
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.SharedFlow
 import models.Symbol
+import repositories.QuoteCache
 
 // Add this enum inside or outside the class
 enum class AnalysisMode {
@@ -38,6 +46,16 @@ enum class AnalysisMode {
     TRENDLINES
 }
 
+/**
+ * A single live bar for the chart: either a replacement of the last (still forming) bar or a
+ * newly opened bar appended after it. Lets the chart update one bar instead of the whole series.
+ */
+data class CandleDelta(
+    val candle: TradingViewCandlestickData,
+    val volume: TradingViewHistogramData,
+    val isNewBar: Boolean
+)
+
 class SymbolMarketDataViewModel(
     private val application: Application,
     private val repository: MarketDataRepository
@@ -56,7 +74,10 @@ class SymbolMarketDataViewModel(
     private val _change = MutableStateFlow<Double?>(null)
     val change: StateFlow<Double?> = _change
 
-    // REVISED: Single source of truth for all candles (historical + real-time)
+    // Single source of truth for all candles (historical + real-time), stored column-wise
+    private val series = CandleSeries()
+
+    // Snapshot views over the series; re-published whenever the series changes
     private val _candles = MutableStateFlow<List<Candle>>(emptyList())
     val candles: StateFlow<List<Candle>> = _candles
 
@@ -74,6 +95,25 @@ class SymbolMarketDataViewModel(
 
     private var marketDataJob: Job? = null
     private var historicalDataJob: Job? = null
+    // Catch-up after a pause; separate from historicalDataJob so it never cancels a scroll-back load
+    private var resumeJob: Job? = null
+
+    // Throttles, pauses and resumes the live stream with the activity's lifecycle
+    val streamGovernor = StreamGovernor(
+        scope = viewModelScope,
+        onPause = ::pauseStream,
+        onResume = ::resumeStream,
+        onSnapshotEnd = ::publishSnapshot
+    )
+
+    // Folded in while the screen is stopped and published when it starts again
+    private var pendingTick: TickData? = null
+
+    // Shared with the watchlist and search, so every screen shows the same price for a symbol
+    private val quoteCache = QuoteCache.getInstance(application)
+    private var quoteSource: LiveData<QuoteCache.Quote>? = null
+    private val quoteObserver = Observer<QuoteCache.Quote> { quote -> showQuote(quote.price, quote.change) }
+    private var seriesChangedInBackground = false
 
     // Add variables to track loading state and prevent duplicate requests
     private var isLoadingMore = false
@@ -138,14 +178,56 @@ class SymbolMarketDataViewModel(
     private fun Candle.toVolumeData(): TradingViewHistogramData =
         TradingViewHistogramData(TradingViewTime.Utc(this.time), this.volume.toFloat(), if (close >= open) upColor else downColor)
 
-    // --- REVISED: Use a SharedFlow for emitting data chunks ---
-    // A SharedFlow is better for events, ensuring each chunk is delivered once.
+    // Chart views over a snapshot; chart models are built lazily as the chart reads them
+    private fun CandleSeries.Snapshot.asCandlestickData(): List<TradingViewCandlestickData> =
+        object : AbstractList<TradingViewCandlestickData>(), RandomAccess {
+            override val size: Int get() = this@asCandlestickData.size
+            override fun get(index: Int): TradingViewCandlestickData = TradingViewCandlestickData(
+                TradingViewTime.Utc(timeAt(index)),
+                openAt(index).toFloat(),
+                highAt(index).toFloat(),
+                lowAt(index).toFloat(),
+                closeAt(index).toFloat()
+            )
+        }
+
+    private fun CandleSeries.Snapshot.asVolumeData(): List<TradingViewHistogramData> =
+        object : AbstractList<TradingViewHistogramData>(), RandomAccess {
+            override val size: Int get() = this@asVolumeData.size
+            override fun get(index: Int): TradingViewHistogramData = TradingViewHistogramData(
+                TradingViewTime.Utc(timeAt(index)),
+                volumeAt(index).toFloat(),
+                if (closeAt(index) >= openAt(index)) upColor else downColor
+            )
+        }
+
+    /**
+     * Re-publishes the series. Pass [toChart] to also push the full series to the chart.
+     */
+    private fun publishSeries(toChart: Boolean) {
+        val snapshot = series.snapshot()
+        _candles.value = snapshot
+        if (toChart) {
+            _candlestickData.value = snapshot.asCandlestickData()
+            _volumeData.value = snapshot.asVolumeData()
+        }
+    }
+
+    // Initial history for the chart; the activity renders it over as many frames as the device needs.
+    // A SharedFlow is better for events, ensuring each load is delivered once.
     private val _chunkedCandlestickData = MutableSharedFlow<List<TradingViewCandlestickData>>()
     val chunkedCandlestickData: SharedFlow<List<TradingViewCandlestickData>> = _chunkedCandlestickData
 
     private val _volumeData = MutableStateFlow<List<TradingViewHistogramData>>(emptyList())
     val volumeData: StateFlow<List<TradingViewHistogramData>> = _volumeData
 
+    // Live bar updates; only the latest ones matter if the collector falls behind
+    private val _candleDeltas = MutableSharedFlow<CandleDelta>(
+        extraBufferCapacity = 64,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+    val candleDeltas: SharedFlow<CandleDelta> = _candleDeltas
+
     fun setSymbol(symbol: String) {
         if (currentSymbol == symbol) return
         Timber.d("Setting symbol to: $symbol")
@@ -164,6 +246,7 @@ class SymbolMarketDataViewModel(
 
     private fun clearStates() {
         _error.value = null
+        series.clear()
         _candles.value = emptyList()
         // Reset the initial data loaded flag
         _hasInitialDataLoaded.value = false
@@ -172,8 +255,26 @@ class SymbolMarketDataViewModel(
 
     // NEW: Function to load the initial data from the cache
     fun loadInitialSymbolData(symbol: String) {
+        // The quote is in memory, so the price the list showed is set before the first frame
+        quoteCache.get(symbol)?.let {
+            _price.value = it.price
+            _change.value = it.change
+        }
+        // Other streams (e.g. the watchlist socket) keep moving it while this one connects
+        quoteSource?.removeObserver(quoteObserver)
+        quoteSource = quoteCache.observe(symbol).also { it.observeForever(quoteObserver) }
+
         viewModelScope.launch {
-            _cachedSymbol.value = repository.getCachedSymbol(symbol)
+            _cachedSymbol.value = repository.getCachedSymbol(symbol)?.also { quoteCache.applyTo(it) }
+        }
+    }
+
+    private fun showQuote(price: Double, change: Double) {
+        if (streamGovernor.isLive) {
+            _price.value = price
+            _change.value = change
+        } else {
+            pendingTick = TickData(price, change)
         }
     }
 
@@ -196,8 +297,9 @@ class SymbolMarketDataViewModel(
                 _isStreamActive.value = true
                 repository.subscribeToMarketUpdates(
                     symbol,
-                    _interval.value
-                ) // Use the new StateFlow
+                    _interval.value, // Use the new StateFlow
+                    isSampling = { streamGovernor.mode == StreamGovernor.Mode.SNAPSHOT }
+                )
                     .catch { e ->
                         Timber.e(e, "Market data stream error for $symbol")
                         _error.value = "Data stream error: ${e.message}"
@@ -206,33 +308,12 @@ class SymbolMarketDataViewModel(
                     .collect { marketUpdate ->
                         when (marketUpdate) {
                             is MarketUpdate.Tick -> {
-                                _price.value = marketUpdate.data.price
-                                _change.value = marketUpdate.data.change
+                                quoteCache.put(symbol, marketUpdate.data.price, marketUpdate.data.change)
+                                showQuote(marketUpdate.data.price, marketUpdate.data.change)
                             }
 
-
-                            is MarketUpdate.CandleUpdate -> {
-                                val newCandle = marketUpdate.data
-                                val currentCandles = _candles.value.toMutableList()
-
-                                val updatedList = if (currentCandles.isNotEmpty() && newCandle.time == currentCandles.last().time) {
-                                    // Update the last candle
-                                    currentCandles[currentCandles.size - 1] = newCandle
-                                    currentCandles
-                                } else if (currentCandles.isEmpty() || newCandle.time > currentCandles.last().time) {
-                                    // Append a new candle
-                                    currentCandles.apply { add(newCandle) }
-                                } else {
-                                    currentCandles // No change
-                                }
-
-                                // **THE FIX:** Now update all three StateFlows
-                                _candles.value = updatedList
-
-                                // Re-map the updated list to the TradingView models
-                                _candlestickData.value = updatedList.map { it.toCandlestickData() }
-                                _volumeData.value = updatedList.map { it.toVolumeData() }
-                            }
+                            is MarketUpdate.CandleUpdate ->
+                                applyLiveCandle(marketUpdate.data, publish = streamGovernor.isLive)
                         }
                     }
             } catch (e: Exception) {
@@ -243,6 +324,87 @@ class SymbolMarketDataViewModel(
         }
     }
 
+    /**
+     * Merges a live bar into the candle list and emits it as a single-bar delta for the chart,
+     * instead of re-mapping and re-sending the whole series on every tick.
+     */
+    private fun applyLiveCandle(newCandle: Candle, publish: Boolean = true) {
+        val isNewBar = when {
+            !series.isEmpty() && newCandle.time == series.lastTime() -> false
+            series.isEmpty() || newCandle.time > series.lastTime() -> true
+            else -> return // Stale bar, nothing to update
+        }
+
+        if (isNewBar) series.append(newCandle) else series.replaceLast(newCandle)
+        if (!publish) {
+            // The chart is redrawn in full when the screen is visible again
+            seriesChangedInBackground = true
+            return
+        }
+        _candles.value = series.snapshot()
+        _candleDeltas.tryEmit(CandleDelta(newCandle.toCandlestickData(), newCandle.toVolumeData(), isNewBar))
+    }
+
+    /**
+     * Publishes what the stream delivered while the screen was stopped, in one go.
+     */
+    private fun publishSnapshot() {
+        pendingTick?.let {
+            _price.value = it.price
+            _change.value = it.change
+        }
+        pendingTick = null
+        if (seriesChangedInBackground) {
+            seriesChangedInBackground = false
+            publishSeries(toChart = true)
+        }
+    }
+
+    /**
+     * Releases the live stream after the screen has been stopped for a while. The socket closes
+     * once the hub's linger time passes without another subscriber.
+     */
+    private fun pauseStream() {
+        Timber.d("Pausing market data stream for $currentSymbol while in background")
+        marketDataJob?.cancel()
+        marketDataJob = null
+        _isStreamActive.value = false
+    }
+
+    /**
+     * Restarts a paused stream: first fetches the bars missed while paused (from the local
+     * store where possible), then goes live again.
+     */
+    private fun resumeStream() {
+        val symbol = currentSymbol ?: return
+        if (!_hasInitialDataLoaded.value) {
+            loadData()
+            return
+        }
+        resumeJob?.cancel()
+        resumeJob = viewModelScope.launch {
+            catchUpMissedBars(symbol)
+            publishSnapshot()
+            if (marketDataJob == null) startMarketDataStream(symbol)
+        }
+    }
+
+    private suspend fun catchUpMissedBars(symbol: String) {
+        if (series.isEmpty()) return
+        val since = series.lastTime()
+        try {
+            val missed = repository.getHistoricalCandles(symbol, _interval.value, Date(since * 1000), Date())
+            if (missed == null) {
+                Timber.w("Could not catch up missed bars for $symbol")
+                return
+            }
+            Timber.d("Catching up ${missed.size} bars for $symbol since $since")
+            missed.forEach { applyLiveCandle(it, publish = false) }
+        } catch (e: Exception) {
+            Timber.w(e, "Could not catch up missed bars for $symbol")
+        }
+    }
+
     /**
      * Cancel the active market data stream
      * This function can be called from outside (e.g., from Activity) to stop the stream
@@ -315,29 +477,25 @@ class SymbolMarketDataViewModel(
             isLoadingMore = true
 
             try {
-                var currentCandles = _candles.value.toMutableList()
-                var earliestTime =
-                    if (currentCandles.isNotEmpty()) currentCandles.first().time else Long.MAX_VALUE
+                val earliestTime = if (!series.isEmpty()) series.firstTime() else System.currentTimeMillis() / 1000
                 val tenYearsAgo = (System.currentTimeMillis() / 1000) - 10L * 365 * 24 * 60 * 60
+                val startSeconds = maxOf(targetTimeSeconds, tenYearsAgo)
 
-                while (earliestTime > targetTimeSeconds && earliestTime > tenYearsAgo) {
-                    val endTime = Date(earliestTime * 1000L - 1) // Just before the earliest candle
-                    val startTime = Date(maxOf(targetTimeSeconds * 1000L, tenYearsAgo * 1000L))
-                    val newCandles = repository.getHistoricalCandles(
+                if (earliestTime > startSeconds) {
+                    // The span is split into page-sized windows fetched in parallel; they arrive
+                    // newest first, so each one is prepended directly before the current history
+                    repository.getHistoricalCandlesInWindows(
                         symbol,
                         _interval.value,
-                        startTime,
-                        endTime
-                    ) // Use the new StateFlow
-                    if (newCandles.isEmpty()) break // No more data available
-
-                    currentCandles =
-                        (newCandles + currentCandles).sortedBy { it.time }.toMutableList()
-                    earliestTime = currentCandles.first().time
+                        Date(startSeconds * 1000L),
+                        Date(earliestTime * 1000L - 1) // Just before the earliest candle
+                    ).collect { window ->
+                        series.prependAll(window)
+                    }
                 }
 
                 // Ensure data extends to current time by appending real-time candles if needed
-                val latestTime = currentCandles.lastOrNull()?.time ?: targetTimeSeconds
+                val latestTime = if (!series.isEmpty()) series.lastTime() else targetTimeSeconds
                 val nowSeconds = System.currentTimeMillis() / 1000
                 if (latestTime < nowSeconds) {
                     val recentCandles = repository.getHistoricalCandles(
@@ -346,12 +504,15 @@ class SymbolMarketDataViewModel(
                         Date(latestTime * 1000L + 1),
                         Date(nowSeconds * 1000L)
                     )
-                    currentCandles.addAll(recentCandles)
-                    currentCandles.sortBy { it.time }
+                    series.appendAll(recentCandles.orEmpty())
                 }
 
-                _candles.value = currentCandles.distinctBy { it.time } // Remove duplicates
+                publishSeries(toChart = true)
                 onComplete(true)
+            } catch (e: CancellationException) {
+                // Superseded, e.g. by a symbol or interval change; not an error to show
+                onComplete(false)
+                throw e
             } catch (e: Exception) {
                 _error.value = "Failed to load historical data: ${e.message}"
                 Timber.e(e, "Error loading historical data until target time")
@@ -403,13 +564,21 @@ class SymbolMarketDataViewModel(
 
             Timber.d("Fetching historical data from $startTime to $endTime for interval ${_interval.value}")
 
-            val candles = repository.getHistoricalCandles(symbol, _interval.value, startTime, endTime)
+            // Offline, a chart of whatever is stored beats an error
+            val candles = repository.getHistoricalCandles(
+                symbol, _interval.value, startTime, endTime, servePartial = true
+            )
 
-            if (candles.isNotEmpty()) {
-                // Process the data in the background and then emit it in chunks
-                processAndEmitInChunks(candles)
+            if (candles == null) {
+                // Left unloaded, so the next resume tries again
+                _error.value = "Failed to load historical data. Check your connection and try again."
+                _isLoading.value = false
+            } else if (candles.isNotEmpty()) {
+                // Process the data in the background and hand it to the chart's render scheduler
+                publishInitialHistory(candles)
                 _hasInitialDataLoaded.value = true
             } else {
+                series.clear()
                 _candles.value = emptyList()
                 _volumeData.value = emptyList()
                 // If there's no data, emit an empty list to clear the chart
@@ -428,28 +597,17 @@ class SymbolMarketDataViewModel(
         }
     }
 
-    private suspend fun processAndEmitInChunks(candles: List<Candle>) {
+    private suspend fun publishInitialHistory(candles: List<Candle>) {
         try {
-            withContext(Dispatchers.Default) {
-                val sortedCandles = candles.sortedBy { it.time }
-                val fullCandlestickData = sortedCandles.map { it.toCandlestickData() }
-                val fullVolumeData = sortedCandles.map { it.toVolumeData() }
-
-                // Update the raw candles and volume data at once
-                withContext(Dispatchers.Main) {
-                    _candles.value = sortedCandles
-                    _volumeData.value = fullVolumeData
-                }
-
-                // Emit the candlestick data in chunks to the UI
-                if (fullCandlestickData.isNotEmpty()) {
-                    val chunkSize = 60 // Render 60 candles at a time
-                    fullCandlestickData.chunked(chunkSize).forEach { chunk ->
-                        _chunkedCandlestickData.emit(chunk)
-                        delay(50)
-                    }
-                }
-
+            series.setAll(candles)
+            val snapshot = series.snapshot()
+            _candles.value = snapshot
+            _volumeData.value = snapshot.asVolumeData()
+            val fullCandlestickData = snapshot.asCandlestickData()
+
+            // Emitted whole: chunking is paced by frame time on the UI side, not by a fixed delay here
+            if (fullCandlestickData.isNotEmpty()) {
+                _chunkedCandlestickData.emit(fullCandlestickData)
             }
         } finally {
             // --- THE FIX ---
@@ -458,32 +616,35 @@ class SymbolMarketDataViewModel(
             // We run it on the Main dispatcher to ensure safe UI state updates.
             withContext(Dispatchers.Main) {
                 _isLoading.value = false
-                Timber.d("processAndEmitInChunks finished. Loader is now OFF.")
+                Timber.d("publishInitialHistory finished. Loader is now OFF.")
             }
         }
     }
 
     /**
-     * Loads more historical data in small chunks as the user scrolls to the left.
+     * Loads an older page of [pageSize] bars as the user scrolls to the left.
      * This function is designed to run silently in the background without showing
-     * the main progress bar.
+     * the main progress bar. [onComplete] receives success(false) once the server has no older
+     * bars, success(true) while there may be more, and a failure if the page could not be fetched.
      */
-    fun loadMoreHistoricalData() {
-        if (isLoadingMore || _candles.value.isEmpty()) return
-        val symbol = currentSymbol ?: return
+    fun loadMoreHistoricalData(pageSize: Int = DEFAULT_PAGE_SIZE, onComplete: ((Result<Boolean>) -> Unit)? = null) {
+        val symbol = currentSymbol
+        if (isLoadingMore || series.isEmpty() || symbol == null) {
+            onComplete?.invoke(Result.success(true))
+            return
+        }
 
         historicalDataJob = viewModelScope.launch {
             isLoadingMore = true
+            var result = Result.success(true)
             try {
-                // Determine how many candles to fetch
-                val candlesPerRequest = 500
-                val earliestCandle = _candles.value.first()
+                val earliestTime = series.firstTime()
                 val intervalMillis = getIntervalMillis(_interval.value)
 
                 // Calculate start time for the new data
-                val startTimeMillis = (earliestCandle.time * 1000L) - (candlesPerRequest * intervalMillis)
+                val startTimeMillis = (earliestTime * 1000L) - (pageSize * intervalMillis)
                 val startTime = Date(maxOf(startTimeMillis, 0L))
-                val endTime = Date(earliestCandle.time * 1000L - 1)
+                val endTime = Date(earliestTime * 1000L - 1)
 
                 // Fetch data in single request
                 val newCandles = repository.getHistoricalCandles(
@@ -491,58 +652,40 @@ class SymbolMarketDataViewModel(
                     _interval.value,
                     startTime,
                     endTime
-                ).sortedBy { it.time }
-
-                if (newCandles.isEmpty()) return@launch
-
-                // Process in chunks for smooth rendering
-                val chunkSize = 50
-                val totalChunks = (newCandles.size + chunkSize - 1) / chunkSize
-                var combinedCandles = _candles.value
+                )
 
-                for (i in 0 until totalChunks) {
-                    val startIdx = i * chunkSize
-                    val endIdx = minOf(startIdx + chunkSize, newCandles.size)
-                    val chunk = newCandles.subList(startIdx, endIdx)
-
-                    // Prepend new chunk
-                    combinedCandles = (chunk + combinedCandles).distinctBy { it.time }
-                        .sortedBy { it.time }
-
-                    // Update state
-                    _candles.value = combinedCandles
-                    _candlestickData.value = combinedCandles.map { it.toCandlestickData() }
-                    _volumeData.value = combinedCandles.map { it.toVolumeData() }
+                if (newCandles == null) {
+                    result = Result.failure(IOException("Could not load bars before $earliestTime for $symbol"))
+                    return@launch
+                }
 
-                    // Add slight delay between chunks
-                    delay(20)
+                // The page is one sorted run that ends before the current history, so it is
+                // merged in a single linear pass and pushed to the chart with one setData
+                if (newCandles.isEmpty() || series.prependAll(newCandles) == 0) {
+                    result = Result.success(false)
+                    return@launch
                 }
+                publishSeries(toChart = true)
+            } catch (e: CancellationException) {
+                result = Result.failure(e)
+                throw e
             } catch (e: Exception) {
                 _error.value = "Failed to load more data: ${e.message}"
+                result = Result.failure(e)
             } finally {
                 isLoadingMore = false
+                onComplete?.invoke(result)
             }
         }
     }
 
+    /**
+     * Bar duration of the current interval.
+     */
+    fun currentIntervalMillis(): Long = getIntervalMillis(_interval.value)
+
     // Helper function to calculate interval duration in milliseconds
-    private fun getIntervalMillis(interval: String): Long {
-        return when (interval) {
-            "1m" -> 60 * 1000L
-            "5m" -> 5 * 60 * 1000L
-            "15m" -> 15 * 60 * 1000L
-            "30m" -> 30 * 60 * 1000L
-            "1h" -> 60 * 60 * 1000L
-            "2h" -> 2 * 60 * 60 * 1000L
-            "4h" -> 4 * 60 * 60 * 1000L
-            "6h" -> 6 * 60 * 60 * 1000L
-            "1d" -> 24 * 60 * 60 * 1000L
-            "3d" -> 3 * 24 * 60 * 60 * 1000L
-            "1w" -> 7 * 24 * 60 * 60 * 1000L
-            "1M" -> 30 * 24 * 60 * 60 * 1000L  // Approximate
-            else -> 60 * 1000L
-        }
-    }
+    private fun getIntervalMillis(interval: String): Long = CandleIntervals.millis(interval)
 
     fun setAnalysisMode(mode: AnalysisMode) {
         _analysisMode.value = mode
@@ -666,6 +809,7 @@ class SymbolMarketDataViewModel(
     private fun cancelAllJobs() {
         Timber.d("Cancelling all active jobs")
         historicalDataJob?.cancel()
+        resumeJob?.cancel()
         marketDataJob?.cancel()
         _isStreamActive.value = false
     }
@@ -674,6 +818,11 @@ class SymbolMarketDataViewModel(
         Timber.d("ViewModel cleared, cleaning up resources")
         cancelAllJobs()
         repository.unsubscribe()
+        quoteSource?.removeObserver(quoteObserver)
         super.onCleared()
     }
+
+    companion object {
+        private const val DEFAULT_PAGE_SIZE = 500
+    }
 }
@@ -0,0 +1,40 @@
+// models/CachedCandle.java
+package models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * A single OHLCV bar persisted on device so charts can render from disk and only
+ * fetch the missing ranges from the backend.
+ * openTime is the bar's open time in seconds, matching the chart's UTC timestamps.
+ */
+@Entity(tableName = "candles", primaryKeys = {"symbol", "interval", "openTime"})
+public class CachedCandle {
+
+    @NonNull
+    public String symbol = "";
+    @NonNull
+    public String interval = "";
+    public long openTime;
+    public double open;
+    public double high;
+    public double low;
+    public double close;
+    public double volume;
+
+    // Default constructor required by Room
+    public CachedCandle() {}
+
+    public CachedCandle(@NonNull String symbol, @NonNull String interval, long openTime,
+                        double open, double high, double low, double close, double volume) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.openTime = openTime;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+}
@@ -4,11 +4,9 @@ package models;
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
-import java.util.Collections;
-import java.util.List;
+import androidx.room.TypeConverters;
+
+import database.roomDB.SparklineConverter;
 
 @Entity(tableName = "symbols")
 public class CachedSymbol {
@@ -24,7 +22,10 @@ public class CachedSymbol {
     public double price;
     public double change;
     public double _24hVolume;
-    public String sparklineJson; // Store sparkline as a JSON string
+    @TypeConverters(SparklineConverter.class)
+    public float[] sparklinePoints; // Stored as a delta-encoded BLOB
+    // Full catalogue download that last saw this symbol; rows left behind by one are delisted
+    public long syncGeneration;
 
     // Default constructor required by Room
     public CachedSymbol() {}
@@ -43,7 +44,7 @@ public class CachedSymbol {
         this.price = symbolObj.getPrice();
         this.change = symbolObj.getChange();
         this._24hVolume = symbolObj.get_24hVolume();
-        this.sparklineJson = new Gson().toJson(symbolObj.getSparkline());
+        this.sparklinePoints = symbolObj.getSparklinePoints();
     }
 
     /**
@@ -51,13 +52,6 @@ public class CachedSymbol {
      * @return A Symbol object.
      */
     public Symbol toSymbol() {
-        Gson gson = new Gson();
-        Type type = new TypeToken<List<Double>>() {}.getType();
-        List<Double> sparklineList = gson.fromJson(sparklineJson, type);
-        if (sparklineList == null) {
-            sparklineList = Collections.emptyList();
-        }
-
         return new Symbol(
                 this.symbol,
                 this.asset,
@@ -68,7 +62,7 @@ public class CachedSymbol {
                 this.price,
                 this.change,
                 this._24hVolume,
-                sparklineList,
+                sparklinePoints != null ? sparklinePoints : new float[0],
                 false // isInWatchlist is a transient state, not cached
         );
     }
@@ -0,0 +1,18 @@
+// models/CachedSymbolFts.java
+package models;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * Full-text index over the cached symbols, kept in sync with the symbols table by the triggers
+ * Room generates for an external content FTS table. Lets type-ahead search match token
+ * prefixes of the ticker, asset and base currency without scanning the whole table.
+ */
+@Fts4(contentEntity = CachedSymbol.class)
+@Entity(tableName = "symbols_fts")
+public class CachedSymbolFts {
+    public String symbol;
+    public String asset;
+    public String baseCurrency;
+}
@@ -0,0 +1,29 @@
+package models;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The catalogue columns of a {@link CachedSymbol}, and the sync generation that wrote them, for
+ * partial updates that must not touch the price, change and sparkline columns kept current by the
+ * live streams.
+ */
+public class CachedSymbolInfo {
+    @NonNull
+    public String symbol = "";
+    public String asset;
+    public String pair;
+    public String baseCurrency;
+    public double _24hVolume;
+    public long syncGeneration;
+
+    public CachedSymbolInfo() {}
+
+    public CachedSymbolInfo(@NonNull CachedSymbol cached) {
+        this.symbol = cached.symbol;
+        this.asset = cached.asset;
+        this.pair = cached.pair;
+        this.baseCurrency = cached.baseCurrency;
+        this._24hVolume = cached._24hVolume;
+        this.syncGeneration = cached.syncGeneration;
+    }
+}
@@ -0,0 +1,32 @@
+package models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Earliest open time the backend has bars for in a series, learnt when a whole window older than
+ * the earliest stored bar came back empty. Stored so the range before a symbol's listing is not
+ * requested again. firstOpenTime is in seconds, like {@link CachedCandle#openTime}; recordedAt is
+ * the wall-clock time in millis it was learnt at, so the entry can expire and be re-checked.
+ */
+@Entity(tableName = "candle_history_start", primaryKeys = {"symbol", "interval"})
+public class CandleHistoryStart {
+
+    @NonNull
+    public String symbol = "";
+    @NonNull
+    public String interval = "";
+    public long firstOpenTime;
+    public long recordedAt;
+
+    // Default constructor required by Room
+    public CandleHistoryStart() {}
+
+    public CandleHistoryStart(@NonNull String symbol, @NonNull String interval, long firstOpenTime,
+                              long recordedAt) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.firstOpenTime = firstOpenTime;
+        this.recordedAt = recordedAt;
+    }
+}
@@ -1,5 +1,7 @@
 package models;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -33,7 +35,9 @@ public class Symbol {
     @SerializedName("24h_volume")
     private double _24hVolume;
 
+    // Filled by Gson from the API; symbols built from the cache only carry sparklinePoints
     private List<Double> sparkline;
+    private transient float[] sparklinePoints;
     private boolean isInWatchlist;
 
     public Symbol(String symbol, String asset, String pair, String baseCurrency, double currentPrice, double _24hChange, double price, double change, double _24hVolume, List<Double> sparkline, boolean isInWatchlist) {
@@ -50,6 +54,21 @@ public class Symbol {
         this.isInWatchlist = isInWatchlist;
     }
 
+    public Symbol(String symbol, String asset, String pair, String baseCurrency, double currentPrice, double _24hChange, double price, double change, double _24hVolume, float[] sparklinePoints, boolean isInWatchlist) {
+        this(symbol, asset, pair, baseCurrency, currentPrice, _24hChange, price, change, _24hVolume, (List<Double>) null, isInWatchlist);
+        this.sparklinePoints = sparklinePoints;
+    }
+
+    /**
+     * Copy constructor. List rows are replaced with updated copies rather than mutated in place,
+     * so that list diffs can see what changed.
+     */
+    public Symbol(Symbol other) {
+        this(other.symbol, other.asset, other.pair, other.baseCurrency, other.currentPrice, other._24hChange,
+                other.price, other.change, other._24hVolume, other.sparkline, other.isInWatchlist);
+        this.sparklinePoints = other.sparklinePoints;
+    }
+
     public String getSymbol() {
         return symbol;
     }
@@ -122,12 +141,68 @@ public class Symbol {
         this._24hVolume = _24hVolume;
     }
 
+    /**
+     * Boxed view of the sparkline, for callers that need a list. Prefer
+     * {@link #getSparklinePoints()}.
+     */
     public List<Double> getSparkline() {
+        if (sparkline == null && sparklinePoints != null) {
+            float[] points = sparklinePoints;
+            sparkline = new AbstractList<Double>() {
+                @Override
+                public Double get(int index) {
+                    return (double) points[index];
+                }
+
+                @Override
+                public int size() {
+                    return points.length;
+                }
+            };
+        }
         return sparkline;
     }
 
     public void setSparkline(List<Double> sparkline) {
         this.sparkline = sparkline;
+        this.sparklinePoints = null;
+    }
+
+    /**
+     * The sparkline as primitive floats, or null if there is none. Null points sent by the API
+     * are skipped. Do not modify the returned array.
+     */
+    public float[] getSparklinePoints() {
+        if (sparklinePoints == null && sparkline != null) {
+            sparklinePoints = toPoints(sparkline);
+        }
+        return sparklinePoints;
+    }
+
+    private static float[] toPoints(List<Double> sparkline) {
+        float[] points = new float[sparkline.size()];
+        int count = 0;
+        for (Double point : sparkline) {
+            if (point != null) points[count++] = point.floatValue();
+        }
+        return count == points.length ? points : Arrays.copyOf(points, count);
+    }
+
+    /**
+     * Compares sparklines without caching the converted array, so equality has no side effects
+     * and stays safe on the diff thread while the row is bound on the main thread.
+     */
+    private boolean sameSparkline(Symbol other) {
+        float[] points = sparklinePoints;
+        float[] otherPoints = other.sparklinePoints;
+        if (points == null && sparkline != null) points = toPoints(sparkline);
+        if (otherPoints == null && other.sparkline != null) otherPoints = toPoints(other.sparkline);
+        return Arrays.equals(points, otherPoints);
+    }
+
+    public void setSparklinePoints(float[] sparklinePoints) {
+        this.sparklinePoints = sparklinePoints;
+        this.sparkline = null;
     }
 
     public boolean isInWatchlist() {
@@ -145,11 +220,29 @@ public class Symbol {
         Symbol symbol = (Symbol) o;
         return Double.compare(symbol.price, price) == 0 &&
                 Double.compare(symbol.change, change) == 0 &&
+                Double.compare(symbol.currentPrice, currentPrice) == 0 &&
+                Double.compare(symbol._24hChange, _24hChange) == 0 &&
                 isInWatchlist == symbol.isInWatchlist && // Include this
-                Objects.equals(symbol, symbol.symbol) &&
+                Objects.equals(this.symbol, symbol.symbol) &&
                 Objects.equals(asset, symbol.asset) &&
                 Objects.equals(baseCurrency, symbol.baseCurrency) &&
-                Objects.equals(sparkline, symbol.sparkline);
+                sameSparkline(symbol);
+    }
+
+    /**
+     * True if the two differ at most in their price and change fields.
+     */
+    public boolean differsOnlyInPrice(Symbol other) {
+        return isInWatchlist == other.isInWatchlist &&
+                Objects.equals(symbol, other.symbol) &&
+                Objects.equals(asset, other.asset) &&
+                Objects.equals(baseCurrency, other.baseCurrency) &&
+                sameSparkline(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(symbol, asset, baseCurrency, price, change, currentPrice, _24hChange, isInWatchlist);
     }
 }
 
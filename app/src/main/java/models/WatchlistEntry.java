@@ -0,0 +1,34 @@
+// models/WatchlistEntry.java
+package models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * A symbol on a user's watchlist, as last known on device. Local adds and removes are applied
+ * here immediately and sent to the backend through the {@link WatchlistOutboxOp} queue.
+ * addedAt orders the list, newest first.
+ */
+@Entity(tableName = "watchlist", primaryKeys = {"userId", "symbol"})
+public class WatchlistEntry {
+
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String symbol = "";
+    public String asset;
+    public String baseCurrency;
+    public long addedAt;
+
+    // Default constructor required by Room
+    public WatchlistEntry() {}
+
+    public WatchlistEntry(@NonNull String userId, @NonNull String symbol, String asset, String baseCurrency,
+                          long addedAt) {
+        this.userId = userId;
+        this.symbol = symbol;
+        this.asset = asset;
+        this.baseCurrency = baseCurrency;
+        this.addedAt = addedAt;
+    }
+}
@@ -0,0 +1,54 @@
+// models/WatchlistOutboxOp.java
+package models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * A watchlist change made on device that the backend has not acknowledged yet. Operations are
+ * replayed in id order, so an add followed by a remove of the same symbol ends up removed.
+ */
+@Entity(tableName = "watchlist_outbox")
+public class WatchlistOutboxOp {
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String symbol = "";
+    @NonNull
+    public String op = ADD;
+    public String baseAsset;
+    public String quoteAsset;
+    public String source;
+    public long createdAt;
+
+    // Default constructor required by Room
+    public WatchlistOutboxOp() {}
+
+    public static WatchlistOutboxOp add(String userId, String symbol, String baseAsset, String quoteAsset,
+                                        String source) {
+        WatchlistOutboxOp op = new WatchlistOutboxOp();
+        op.userId = userId;
+        op.symbol = symbol;
+        op.op = ADD;
+        op.baseAsset = baseAsset;
+        op.quoteAsset = quoteAsset;
+        op.source = source;
+        op.createdAt = System.currentTimeMillis();
+        return op;
+    }
+
+    public static WatchlistOutboxOp remove(String userId, String symbol) {
+        WatchlistOutboxOp op = new WatchlistOutboxOp();
+        op.userId = userId;
+        op.symbol = symbol;
+        op.op = REMOVE;
+        op.createdAt = System.currentTimeMillis();
+        return op;
+    }
+}
@@ -0,0 +1,111 @@
+package repositories;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Runs Retrofit calls on a bounded executor and shares each in-flight call among identical
+ * concurrent requests.
+ *
+ * Requests are keyed by the caller. While a call for a key is running, further requests for that
+ * key just join it and receive the same result, instead of issuing another HTTP call. A key can
+ * be cancelled, e.g. when a newer search query supersedes it; its listeners then get
+ * {@link Listener#onCancelled} instead of a result.
+ */
+final class InFlightRequests<T> {
+    private static final String TAG = "InFlightRequests";
+
+    interface Listener<T> {
+        /**
+         * Called on the executor thread with the response body, or null if the call failed.
+         * Not called if the request was cancelled.
+         */
+        void onComplete(@Nullable T result);
+
+        /**
+         * Called on the executor thread instead of {@link #onComplete} if the request was
+         * cancelled, so callers waiting on it can clean up.
+         */
+        default void onCancelled() {
+        }
+    }
+
+    private static final class Pending<T> {
+        final Call<T> call;
+        final List<Listener<T>> listeners = new ArrayList<>();
+
+        Pending(Call<T> call) {
+            this.call = call;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Map<String, Pending<T>> pending = new HashMap<>();
+
+    InFlightRequests(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    void request(String key, Supplier<Call<T>> callFactory, Listener<T> listener) {
+        Pending<T> started;
+        synchronized (this) {
+            Pending<T> existing = pending.get(key);
+            if (existing != null) {
+                existing.listeners.add(listener);
+                return;
+            }
+            started = new Pending<>(callFactory.get());
+            started.listeners.add(listener);
+            pending.put(key, started);
+        }
+        executor.execute(() -> run(key, started));
+    }
+
+    void cancel(String key) {
+        Pending<T> cancelled;
+        synchronized (this) {
+            cancelled = pending.remove(key);
+        }
+        if (cancelled != null) cancelled.call.cancel();
+    }
+
+    private void run(String key, Pending<T> request) {
+        T result = null;
+        try {
+            Response<T> response = request.call.execute();
+            if (response.isSuccessful()) {
+                result = response.body();
+            } else {
+                Log.e(TAG, "Request " + key + " failed with code " + response.code());
+            }
+        } catch (IOException e) {
+            if (!request.call.isCanceled()) Log.e(TAG, "Request " + key + " failed", e);
+        }
+
+        List<Listener<T>> listeners;
+        synchronized (this) {
+            if (pending.get(key) == request) pending.remove(key);
+            listeners = new ArrayList<>(request.listeners);
+        }
+        boolean cancelled = request.call.isCanceled();
+        for (Listener<T> listener : listeners) {
+            if (cancelled) {
+                listener.onCancelled();
+            } else {
+                listener.onComplete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package repositories;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import backend.SymbolDao;
+import database.roomDB.AppDatabase;
+import models.Symbol;
+
+/**
+ * Process-wide latest quote per ticker: price, 24h change, when it was seen and the sparkline.
+ *
+ * Every stream writes here (the watchlist socket, the chart's market data socket, search
+ * results) and every screen reads from here, so a symbol shows the same price wherever it is
+ * opened. Updates are written through to the Room symbol cache in batches, at most once every
+ * {@link #WRITE_DELAY_MS}, so the next cold start begins from the last seen price. Thread-safe.
+ */
+public final class QuoteCache {
+    private static final String TAG = "QuoteCache";
+    private static final long WRITE_DELAY_MS = 2000;
+
+    public static final class Quote {
+        public final String ticker;
+        public final double price;
+        public final double change;
+        // System.currentTimeMillis() when the quote was received
+        public final long timestamp;
+        @Nullable
+        public final float[] sparkline;
+
+        Quote(String ticker, double price, double change, long timestamp, @Nullable float[] sparkline) {
+            this.ticker = ticker;
+            this.price = price;
+            this.change = change;
+            this.timestamp = timestamp;
+            this.sparkline = sparkline;
+        }
+    }
+
+    private static volatile QuoteCache instance;
+
+    private final SymbolDao symbolDao;
+    private final AppDatabase database;
+    private final Map<String, Quote> quotes = new ConcurrentHashMap<>();
+    // Guarded by themselves
+    private final Map<String, MutableLiveData<Quote>> observed = new HashMap<>();
+    private final Map<String, Quote> unwritten = new HashMap<>();
+    private boolean writeScheduled;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+
+    private QuoteCache(Context context) {
+        database = AppDatabase.getInstance(context);
+        symbolDao = database.symbolDao();
+    }
+
+    public static QuoteCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (QuoteCache.class) {
+                if (instance == null) {
+                    instance = new QuoteCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Nullable
+    public Quote get(String ticker) {
+        return quotes.get(ticker);
+    }
+
+    /**
+     * The quote for [ticker], updated on the main thread whenever any stream moves it.
+     */
+    public LiveData<Quote> observe(String ticker) {
+        synchronized (observed) {
+            MutableLiveData<Quote> liveData = observed.get(ticker);
+            if (liveData == null) {
+                Quote current = quotes.get(ticker);
+                liveData = current != null ? new MutableLiveData<>(current) : new MutableLiveData<>();
+                observed.put(ticker, liveData);
+            }
+            return liveData;
+        }
+    }
+
+    /**
+     * A live price tick. The sparkline already known for the ticker is kept.
+     */
+    public void put(String ticker, double price, double change) {
+        if (price <= 0) return;
+        Quote previous = quotes.get(ticker);
+        if (previous != null && previous.price == price && previous.change == change) return;
+        publish(new Quote(ticker, price, change, System.currentTimeMillis(),
+                previous != null ? previous.sparkline : null));
+    }
+
+    /**
+     * A full row from a stream snapshot, including its sparkline.
+     */
+    public void put(Symbol symbol) {
+        double price = symbol.getPrice();
+        if (price <= 0) return;
+        float[] sparkline = symbol.getSparklinePoints();
+        if (sparkline == null || sparkline.length == 0) {
+            Quote previous = quotes.get(symbol.getSymbol());
+            sparkline = previous != null ? previous.sparkline : null;
+        }
+        publish(new Quote(symbol.getSymbol(), price, symbol.getChange(), System.currentTimeMillis(), sparkline));
+    }
+
+    /**
+     * A row from a source that may be older than the streams, e.g. a search result. Only used
+     * if nothing fresher is known. Returns the quote the row should show instead, or null if
+     * the row itself was taken.
+     */
+    @Nullable
+    public Quote offer(Symbol symbol) {
+        Quote current = quotes.get(symbol.getSymbol());
+        if (current != null) return current;
+        double price = symbol.getCurrentPrice() > 0 ? symbol.getCurrentPrice() : symbol.getPrice();
+        double change = symbol.getCurrentPrice() > 0 ? symbol.get_24hChange() : symbol.getChange();
+        if (price <= 0) return null;
+        // Stamped 0 so it counts as older than any streamed quote; not written back, Room already has it
+        Quote offered = new Quote(symbol.getSymbol(), price, change, 0, symbol.getSparklinePoints());
+        if (quotes.putIfAbsent(symbol.getSymbol(), offered) != null) return quotes.get(symbol.getSymbol());
+        notifyObservers(offered);
+        return null;
+    }
+
+    /**
+     * Copies the quote's price, change and sparkline onto a row. Returns false if there is no
+     * quote for it.
+     */
+    public boolean applyTo(@NonNull Symbol symbol) {
+        Quote quote = quotes.get(symbol.getSymbol());
+        if (quote == null) return false;
+        symbol.setPrice(quote.price);
+        symbol.setChange(quote.change);
+        symbol.setCurrentPrice(quote.price);
+        symbol.set_24hChange(quote.change);
+        if (quote.sparkline != null && quote.sparkline.length > 0) {
+            symbol.setSparklinePoints(quote.sparkline);
+        }
+        return true;
+    }
+
+    private void publish(Quote quote) {
+        quotes.put(quote.ticker, quote);
+        notifyObservers(quote);
+        synchronized (unwritten) {
+            unwritten.put(quote.ticker, quote);
+            if (writeScheduled) return;
+            writeScheduled = true;
+        }
+        writer.schedule(this::writeThrough, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifyObservers(Quote quote) {
+        MutableLiveData<Quote> liveData;
+        synchronized (observed) {
+            liveData = observed.get(quote.ticker);
+        }
+        if (liveData != null) liveData.postValue(quote);
+    }
+
+    private void writeThrough() {
+        List<Quote> batch;
+        synchronized (unwritten) {
+            batch = new ArrayList<>(unwritten.values());
+            unwritten.clear();
+            writeScheduled = false;
+        }
+        if (batch.isEmpty()) return;
+        try {
+            database.runInTransaction(() -> {
+                for (Quote quote : batch) {
+                    symbolDao.updateQuote(quote.ticker, quote.price, quote.change);
+                    if (quote.sparkline != null && quote.sparkline.length > 0) {
+                        symbolDao.updateSparkline(quote.ticker, quote.sparkline);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to write " + batch.size() + " quotes", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package repositories;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import models.Symbol;
+
+/**
+ * Size- and age-bounded cache of symbol search results.
+ *
+ * Entries expire after a fixed TTL so prices don't go stale, and the least recently used entry
+ * is evicted once the cache is full. A query that isn't cached can still be answered from one
+ * of its prefixes ("BTCU" from "BTC"), by filtering, as long as the prefix result was complete,
+ * i.e. the server returned fewer rows than were asked for.
+ */
+public class SearchCache {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long prefixHits;
+    private long misses;
+    private long evictions;
+
+    private static final class Entry {
+        final List<Symbol> symbols;
+        final int limit;
+        final long storedAt;
+
+        Entry(List<Symbol> symbols, int limit, long storedAt) {
+            this.symbols = symbols;
+            this.limit = limit;
+            this.storedAt = storedAt;
+        }
+
+        boolean isComplete() {
+            return symbols.size() < limit;
+        }
+    }
+
+    public SearchCache(int maxEntries, long ttlMs) {
+        this(maxEntries, ttlMs, SystemClock::elapsedRealtime);
+    }
+
+    // Tests pass their own clock in milliseconds
+    SearchCache(int maxEntries, long ttlMs, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= SearchCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the results for [query], from its own entry or a complete prefix entry, or null.
+     */
+    @Nullable
+    public synchronized List<Symbol> get(String query, int limit) {
+        String key = normalize(query);
+        long now = clock.getAsLong();
+
+        Entry exact = live(key, now);
+        if (exact != null && (exact.limit >= limit || exact.isComplete())) {
+            hits++;
+            return truncate(exact.symbols, limit);
+        }
+
+        for (int end = key.length() - 1; end > 0; end--) {
+            Entry prefix = live(key.substring(0, end), now);
+            if (prefix == null || !prefix.isComplete()) continue;
+            prefixHits++;
+            List<Symbol> filtered = filter(prefix.symbols, key);
+            // Stored whole under the full query too: its own entry is as complete as the prefix's
+            entries.put(key, new Entry(filtered, prefix.limit, prefix.storedAt));
+            return truncate(filtered, limit);
+        }
+
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(String query, int limit, List<Symbol> symbols) {
+        entries.put(normalize(query), new Entry(Collections.unmodifiableList(new ArrayList<>(symbols)), limit,
+                clock.getAsLong()));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Hit/miss counters since creation, for logging and debugging.
+     */
+    public synchronized String getStats() {
+        return String.format(Locale.US, "size=%d hits=%d prefixHits=%d misses=%d evictions=%d",
+                entries.size(), hits, prefixHits, misses, evictions);
+    }
+
+    @Nullable
+    private Entry live(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (now - entry.storedAt > ttlMs) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static List<Symbol> filter(List<Symbol> symbols, String key) {
+        List<Symbol> filtered = new ArrayList<>();
+        for (Symbol symbol : symbols) {
+            if (contains(symbol.getSymbol(), key) || contains(symbol.getAsset(), key)) {
+                filtered.add(symbol);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    private static boolean contains(@Nullable String value, String key) {
+        return value != null && value.toLowerCase(Locale.US).contains(key);
+    }
+
+    private static List<Symbol> truncate(List<Symbol> symbols, int limit) {
+        return symbols.size() <= limit ? symbols : symbols.subList(0, limit);
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.US);
+    }
+}
@@ -17,6 +17,8 @@ import android.content.Context;
 import com.google.gson.Gson;
 
 public class StreamRepository {
+    // Gson is thread-safe; one instance is reused for every frame
+    private static final Gson GSON = new Gson();
     private final WebSocketService webSocketService;
     private final Context context;
     private final MutableLiveData<StreamMarketData> marketData = new MutableLiveData<>();
@@ -47,8 +49,7 @@ public class StreamRepository {
             public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
                 Timber.d("Raw message: %s", text); // Add for debugging
                 try {
-                    Gson gson = new Gson();
-                    StreamMarketData data = gson.fromJson(text, StreamMarketData.class);
+                    StreamMarketData data = GSON.fromJson(text, StreamMarketData.class);
                     // Handle price updates
                     if (data.getPrice() != 0) {
                         marketData.postValue(data);
@@ -64,9 +65,16 @@ public class StreamRepository {
                 }
             }
 
+            @Override
+            public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+                // Also called when the hub has reconnected a dropped stream
+                error.postValue(null);
+            }
+
             @Override
             public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, Response response) {
-                error.postValue("Connection error: " + t.getMessage());
+                // The hub keeps the subscription and reconnects with backoff
+                error.postValue("Connection lost, reconnecting: " + t.getMessage());
             }
         });
     }
@@ -0,0 +1,177 @@
+package repositories;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+import backend.ApiService;
+import backend.SymbolDao;
+import backend.results.SymbolCatalogueResponse;
+import models.CachedSymbol;
+import retrofit2.Response;
+
+/**
+ * Keeps the local {@code symbols} table a full copy of the backend symbol catalogue.
+ *
+ * The first run pages through the whole catalogue; later runs only fetch what changed since the
+ * last synced version. Pages are written in small transactions, so a large download never
+ * holds the database for long. The version is only stored once all pages of a
+ * run are written, so an interrupted run is simply repeated (the writes are upserts). A backend
+ * that serves the catalogue as a bare list, without versions, gets a full download every run.
+ * A full download stamps every symbol it writes with a new sync generation and, once all pages
+ * are in, deletes the rows an older generation left behind: a full download carries no list
+ * of delisted symbols. Blocking; runs on a worker thread.
+ */
+public class SymbolCatalogueSync {
+    private static final String TAG = "SymbolCatalogueSync";
+
+    private static final String PREFS_NAME = "symbol_catalogue";
+    private static final String KEY_VERSION = "version";
+
+    private static final int PAGE_SIZE = 1000;
+    // Below SQLite's default limit of 999 bound variables for the IN (...) delete
+    private static final int BATCH_SIZE = 500;
+
+    private static final Gson GSON = new Gson();
+    private static final Type SYMBOL_LIST = new TypeToken<List<CachedSymbol>>() {}.getType();
+
+    /**
+     * Thrown when the server can no longer produce a delta from the stored version.
+     */
+    private static final class ResyncRequired extends Exception {
+    }
+
+    private final ApiService api;
+    private final SymbolDao symbolDao;
+    private final SharedPreferences prefs;
+
+    public SymbolCatalogueSync(Context context, ApiService api, SymbolDao symbolDao) {
+        this(api, symbolDao,
+                context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    SymbolCatalogueSync(ApiService api, SymbolDao symbolDao, SharedPreferences prefs) {
+        this.api = api;
+        this.symbolDao = symbolDao;
+        this.prefs = prefs;
+    }
+
+    /**
+     * Brings the local catalogue up to date. Returns false if the run should be retried.
+     * Never throws.
+     */
+    public boolean sync() {
+        try {
+            String since = prefs.getString(KEY_VERSION, null);
+            // A destructive Room migration empties the table but not the stored version
+            if (since != null && symbolDao.count() == 0) {
+                Log.d(TAG, "Local catalogue is empty, starting over");
+                since = null;
+            }
+
+            String version;
+            try {
+                version = fetchAll(since);
+            } catch (ResyncRequired e) {
+                Log.d(TAG, "Version " + since + " is too old for a delta, downloading the full catalogue");
+                version = fetchAll(null);
+            }
+            if (version != null) {
+                prefs.edit().putString(KEY_VERSION, version).apply();
+            } else {
+                prefs.edit().remove(KEY_VERSION).apply();
+            }
+            Log.d(TAG, "Catalogue synced to version " + version);
+            return true;
+        } catch (IOException | ResyncRequired | RuntimeException e) {
+            Log.e(TAG, "Catalogue sync failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Pages through the catalogue (or the delta since [since]) and writes it. Returns the
+     * version reached, or null if the backend does not version its catalogue.
+     */
+    @Nullable
+    private String fetchAll(@Nullable String since) throws IOException, ResyncRequired {
+        boolean full = since == null;
+        // A delta joins the generation of the last full download; a full one starts the next
+        long generation = symbolDao.maxSyncGeneration() + (full ? 1 : 0);
+        String version = null;
+        int written = 0;
+        int deleted = 0;
+        for (int page = 1; ; page++) {
+            Response<JsonElement> response = api.getSymbolCatalogue(since, page, PAGE_SIZE).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Catalogue page " + page + " failed with code " + response.code());
+            }
+            SymbolCatalogueResponse body = parse(response.body());
+            if (since != null && body.isFullResync()) throw new ResyncRequired();
+
+            // The version of the first page is kept: changes made while paging show up in the next delta
+            if (page == 1) version = body.getVersion();
+            write(body.getSymbols(), body.getRemoved(), generation);
+            written += body.getSymbols().size();
+            deleted += body.getRemoved().size();
+
+            if (!body.hasMore()) break;
+        }
+        if (full) deleted += sweep(generation);
+        Log.d(TAG, (full ? "Full" : "Delta") + " sync: " + written + " upserted, " + deleted + " removed");
+        return version;
+    }
+
+    private static SymbolCatalogueResponse parse(JsonElement json) throws IOException {
+        try {
+            if (json.isJsonArray()) {
+                return SymbolCatalogueResponse.ofFullList(GSON.fromJson(json, SYMBOL_LIST));
+            }
+            if (json.isJsonObject()) {
+                return GSON.fromJson(json, SymbolCatalogueResponse.class);
+            }
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed catalogue page", e);
+        }
+        throw new IOException("Unexpected catalogue payload: " + json);
+    }
+
+    private void write(List<CachedSymbol> symbols, List<String> removed, long generation) {
+        for (CachedSymbol symbol : symbols) {
+            symbol.syncGeneration = generation;
+        }
+        for (int start = 0; start < symbols.size(); start += BATCH_SIZE) {
+            List<CachedSymbol> batch = symbols.subList(start, Math.min(start + BATCH_SIZE, symbols.size()));
+            symbolDao.applyCatalogueBatch(batch, Collections.emptyList());
+        }
+        for (int start = 0; start < removed.size(); start += BATCH_SIZE) {
+            List<String> batch = removed.subList(start, Math.min(start + BATCH_SIZE, removed.size()));
+            symbolDao.applyCatalogueBatch(Collections.emptyList(), batch);
+        }
+    }
+
+    /**
+     * Deletes the symbols a full download of [generation] did not write, in batches.
+     */
+    private int sweep(long generation) {
+        int deleted = 0;
+        int batch;
+        do {
+            batch = symbolDao.deleteOlderGenerations(generation, BATCH_SIZE);
+            deleted += batch;
+        } while (batch == BATCH_SIZE);
+        return deleted;
+    }
+}
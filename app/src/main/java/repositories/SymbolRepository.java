@@ -8,12 +8,12 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -31,12 +31,25 @@ import retrofit2.Callback;
 import retrofit2.Response;
 
 public class SymbolRepository {
+    // Local matches needed before a type-ahead query skips the network
+    private static final int MIN_LOCAL_RESULTS = 5;
+
     private final ApiService api;
-    private final Map<String, List<Symbol>> searchCache = new ConcurrentHashMap<>();
-    private Call<List<Symbol>> currentSearchCall;
+    // Bounded and short-lived, so long sessions neither leak memory nor show stale prices
+    private final SearchCache searchCache = new SearchCache(64, 60_000);
     private final SymbolDao symbolDao;
     private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
 
+    // Network calls run on one small bounded pool shared by every repository instance; identical
+    // concurrent requests share one call
+    private static final ExecutorService NETWORK_EXECUTOR = Executors.newFixedThreadPool(3);
+    private final InFlightRequests<List<Symbol>> searchRequests = new InFlightRequests<>(NETWORK_EXECUTOR);
+    private final InFlightRequests<List<Symbol>> detailRequests = new InFlightRequests<>(NETWORK_EXECUTOR);
+    private final InFlightRequests<List<CachedSymbol>> catalogueSearchRequests = new InFlightRequests<>(NETWORK_EXECUTOR);
+    // Guarded by this
+    private String currentSearchKey;
+    private int searchGeneration;
+
     private final MutableLiveData<Boolean> isSymbolSearchLoading = new MutableLiveData<>(false);
 
     public SymbolRepository(Application application) {
@@ -57,39 +70,120 @@ public class SymbolRepository {
         });
     }
 
+    /**
+     * Searches symbols. Every call supersedes the previous one: a network search still running
+     * for an older query is cancelled, and its LiveData receives the older query's local results
+     * so observers are always released.
+     */
     public LiveData<List<Symbol>> searchCrypto(String query, int limit) {
         MutableLiveData<List<Symbol>> liveData = new MutableLiveData<>();
 
-        if (currentSearchCall != null) {
-            currentSearchCall.cancel();
+        String key = searchKey(query, limit);
+        String superseded;
+        int generation;
+        synchronized (this) {
+            generation = ++searchGeneration;
+            superseded = currentSearchKey;
+            currentSearchKey = null;
         }
+        // Cancelled whichever way this query is answered; typing the same query again joins it instead
+        if (superseded != null && !superseded.equals(key)) searchRequests.cancel(superseded);
 
-        if (searchCache.containsKey(query)) {
-            liveData.postValue(searchCache.get(query));
+        List<Symbol> cached = searchCache.get(query, limit);
+        if (cached != null) {
+            Log.d("SymbolRepository", "Search cache hit for '" + query + "' (" + searchCache.getStats() + ")");
+            liveData.postValue(cached);
             return liveData;
         }
 
-        currentSearchCall = api.searchCrypto(query, limit);
-        currentSearchCall.enqueue(new Callback<>() {
+        // Answer from the on-device index first; only go to the network when it has too few matches
+        databaseExecutor.execute(() -> {
+            List<Symbol> localResults = searchLocalSymbols(query, limit);
+            if (localResults.size() >= Math.min(limit, MIN_LOCAL_RESULTS)) {
+                liveData.postValue(localResults);
+                return;
+            }
+            searchNetwork(query, limit, generation, localResults, liveData);
+        });
+
+        return liveData;
+    }
+
+    private void searchNetwork(String query, int limit, int generation, List<Symbol> localResults,
+                               MutableLiveData<List<Symbol>> liveData) {
+        String key = searchKey(query, limit);
+        String superseded;
+        synchronized (this) {
+            if (generation != searchGeneration) {
+                // A newer query came in while this one searched locally
+                liveData.postValue(localResults);
+                return;
+            }
+            superseded = currentSearchKey;
+            currentSearchKey = key;
+        }
+        if (superseded != null && !superseded.equals(key)) searchRequests.cancel(superseded);
+
+        searchRequests.request(key, () -> api.searchCrypto(query, limit), new InFlightRequests.Listener<>() {
             @Override
-            public void onResponse(@NonNull Call<List<Symbol>> call, @NonNull Response<List<Symbol>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Symbol> symbols = response.body();
-                    searchCache.put(query, symbols);
+            public void onComplete(List<Symbol> symbols) {
+                if (symbols != null) {
+                    searchCache.put(query, limit, symbols);
                     liveData.postValue(symbols);
                     cacheSymbols(symbols); // <-- CACHE THE RESULTS
+                } else {
+                    // Poor connection: whatever the device knows beats an empty list
+                    liveData.postValue(localResults);
                 }
             }
 
             @Override
-            public void onFailure(@NonNull Call<List<Symbol>> call, @NonNull Throwable t) {
-                if (!call.isCanceled()) {
-                    liveData.postValue(Collections.emptyList());
-                }
+            public void onCancelled() {
+                liveData.postValue(localResults);
             }
         });
+    }
 
-        return liveData;
+    private static String searchKey(String query, int limit) {
+        return query.trim().toLowerCase(Locale.US) + "|" + limit;
+    }
+
+    /**
+     * Type-ahead search over the cached symbols: token-prefix matches from the full-text index
+     * (ticker prefixes first, then by volume), topped up with substring matches on the ticker
+     * and asset. Must be called off the main thread.
+     */
+    public List<Symbol> searchLocalSymbols(String query, int limit) {
+        Map<String, Symbol> results = new LinkedHashMap<>();
+        String match = toFtsMatch(query);
+        if (match != null) {
+            String prefix = query.trim().toLowerCase(Locale.US) + "%";
+            for (CachedSymbol cached : symbolDao.searchFts(match, prefix, limit)) {
+                results.put(cached.symbol, cached.toSymbol());
+            }
+        }
+        if (results.size() < limit) {
+            for (CachedSymbol cached : symbolDao.searchInfix("%" + query.trim() + "%", limit)) {
+                if (results.size() >= limit) break;
+                if (!results.containsKey(cached.symbol)) results.put(cached.symbol, cached.toSymbol());
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Turns user input into an FTS4 prefix query ("btc us" -> "btc* us*"), or null if nothing
+     * searchable is left. Punctuation is dropped so it can't break the MATCH syntax.
+     */
+    static String toFtsMatch(String query) {
+        if (query == null) return null;
+        StringBuilder match = new StringBuilder();
+        for (String token : query.toLowerCase(Locale.US).split("[^a-z0-9]+")) {
+            if (token.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(token).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
     }
 
     public Completable addToWatchlist(AddWatchlistRequest request) {
@@ -125,8 +219,11 @@ public class SymbolRepository {
     }
 
     public LiveData<List<CachedSymbol>> searchCachedSymbols(String query) {
-        // Immediately fetch from the local database and return as LiveData.
-        LiveData<List<CachedSymbol>> localResults = symbolDao.searchSymbols("%" + query + "%");
+        // Immediately fetch from the local index and return as LiveData.
+        String match = toFtsMatch(query);
+        LiveData<List<CachedSymbol>> localResults = match != null
+                ? symbolDao.searchFtsLive(match, query.trim().toLowerCase(Locale.US) + "%", 20)
+                : symbolDao.searchSymbols("%" + query + "%");
 
         // Check if local results exist before fetching from network
         checkLocalResultsAndFetch(query, localResults);
@@ -136,22 +233,14 @@ public class SymbolRepository {
 
     public LiveData<Symbol> fetchSymbolDetails(String symbolTicker) {
         MutableLiveData<Symbol> symbolData = new MutableLiveData<>();
-        Call<List<Symbol>> call = api.searchCrypto(symbolTicker, 1); // Assuming this returns detailed data
-        call.enqueue(new Callback<>() {
-            @Override
-            public void onResponse(Call<List<Symbol>> call, Response<List<Symbol>> response) {
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    Symbol symbol = response.body().get(0);
-                    symbolData.setValue(symbol);
-                    cacheSymbols(Collections.singletonList(symbol)); // Cache the detailed symbol
-                } else {
-                    symbolData.setValue(null);
-                }
-            }
-
-            @Override
-            public void onFailure(@NonNull Call<List<Symbol>> call, @NonNull Throwable t) {
-                symbolData.setValue(null);
+        // Repeated taps on the same row share one request
+        detailRequests.request(symbolTicker, () -> api.searchCrypto(symbolTicker, 1), symbols -> { // Assuming this returns detailed data
+            if (symbols != null && !symbols.isEmpty()) {
+                Symbol symbol = symbols.get(0);
+                symbolData.postValue(symbol);
+                cacheSymbols(Collections.singletonList(symbol)); // Cache the detailed symbol
+            } else {
+                symbolData.postValue(null);
             }
         });
         return symbolData;
@@ -186,19 +275,13 @@ public class SymbolRepository {
         // Set loading state to true before starting the network call
         isSymbolSearchLoading.postValue(true);
 
-        new Thread(() -> {
-            try {
-                Response<List<CachedSymbol>> response = api.searchSymbols(query).execute();
-                if (response.isSuccessful() && response.body() != null) {
-                    symbolDao.insertAll(response.body());
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            } finally {
-                // Set loading state to false once the operation is complete
-                isSymbolSearchLoading.postValue(false);
+        catalogueSearchRequests.request(query, () -> api.searchSymbols(query), symbols -> {
+            if (symbols != null) {
+                symbolDao.insertAll(symbols);
             }
-        }).start();
+            // Set loading state to false once the operation is complete
+            isSymbolSearchLoading.postValue(false);
+        });
     }
 
     // Expose the loading state LiveData to the ViewModel
@@ -19,7 +19,9 @@ import java.util.concurrent.TimeUnit;
 
 import androidx.work.Constraints;
 import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
 import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 
@@ -35,6 +37,7 @@ public class SyncRepository {
     private final ApiService apiService;
     private final WorkManager workManager;
     private static final String SYNC_WORK_TAG = "PeriodicPatternSync"; // Unique name for the work
+    private static final String STARTUP_SYNC_WORK_TAG = "StartupSync";
 
     public SyncRepository(Application application, AppDatabase database, ApiService apiService) {
         this.patternDao = database.patternDao();
@@ -60,4 +63,24 @@ public class SyncRepository {
                 syncWorkRequest
         );
     }
+
+    /**
+     * Runs one sync as soon as there is a network, so the symbol catalogue is downloaded on
+     * first launch and later launches pick up its deltas without waiting for the periodic run.
+     */
+    public void syncNow() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest syncWorkRequest = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setConstraints(constraints)
+                .build();
+
+        workManager.enqueueUniqueWork(
+                STARTUP_SYNC_WORK_TAG,
+                ExistingWorkPolicy.KEEP,
+                syncWorkRequest
+        );
+    }
 }
@@ -0,0 +1,140 @@
+package repositories;
+
+import android.app.Application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import backend.SymbolDao;
+import backend.WatchlistDao;
+import backend.results.WatchlistUpdateResult;
+import database.roomDB.AppDatabase;
+import models.CachedSymbol;
+import models.Symbol;
+import models.WatchlistEntry;
+import models.WatchlistOutboxOp;
+import services.room_background_tasks.WatchlistOutboxWorker;
+
+/**
+ * Offline-first watchlist. The local table is the list the UI shows; adds and removes are
+ * applied to it at once and queued in an outbox that {@link WatchlistOutboxWorker} replays
+ * whenever there is a network. The backend list is merged in by {@link #reconcile}, which only
+ * writes the differences. All methods block and must be called off the main thread.
+ */
+public class WatchlistRepository {
+    private static final String OUTBOX_WORK_NAME = "WatchlistOutbox";
+
+    // Queued changes the backend refused (e.g. a plan limit), posted by the outbox worker. Static,
+    // since the worker has no view model to report to.
+    private static final MutableLiveData<WatchlistUpdateResult> rejections = new MutableLiveData<>();
+
+    private final WatchlistDao watchlistDao;
+    private final SymbolDao symbolDao;
+    private final WorkManager workManager;
+
+    public WatchlistRepository(Application application) {
+        AppDatabase database = AppDatabase.getInstance(application);
+        this.watchlistDao = database.watchlistDao();
+        this.symbolDao = database.symbolDao();
+        this.workManager = WorkManager.getInstance(application);
+    }
+
+    /**
+     * The local watchlist, newest first, filled in from the symbol cache where possible.
+     */
+    public List<Symbol> getLocalWatchlist(String userId) {
+        List<WatchlistEntry> entries = watchlistDao.getEntries(userId);
+        if (entries.isEmpty()) return Collections.emptyList();
+
+        List<String> tickers = new ArrayList<>(entries.size());
+        for (WatchlistEntry entry : entries) {
+            tickers.add(entry.symbol);
+        }
+        Map<String, CachedSymbol> cached = new HashMap<>();
+        for (CachedSymbol symbol : symbolDao.getSymbolsByTickersSync(tickers)) {
+            cached.put(symbol.symbol, symbol);
+        }
+
+        List<Symbol> symbols = new ArrayList<>(entries.size());
+        for (WatchlistEntry entry : entries) {
+            CachedSymbol hit = cached.get(entry.symbol);
+            Symbol symbol = hit != null
+                    ? hit.toSymbol()
+                    : new Symbol(entry.symbol, entry.asset, "", entry.baseCurrency, 0, 0, 0, 0, 0, new float[0], true);
+            symbol.setInWatchlist(true);
+            symbols.add(symbol);
+        }
+        return symbols;
+    }
+
+    public void add(String userId, Symbol symbol, String source) {
+        watchlistDao.addLocally(
+                new WatchlistEntry(userId, symbol.getSymbol(), symbol.getAsset(), symbol.getBaseCurrency(),
+                        System.currentTimeMillis()),
+                WatchlistOutboxOp.add(userId, symbol.getSymbol(), symbol.getBaseCurrency(), symbol.getAsset(), source));
+        // So the row can be rebuilt with its price and sparkline while offline
+        symbolDao.insertAll(Collections.singletonList(new CachedSymbol(symbol)));
+        scheduleOutbox();
+    }
+
+    public void remove(String userId, String ticker) {
+        watchlistDao.removeLocally(userId, ticker, WatchlistOutboxOp.remove(userId, ticker));
+        scheduleOutbox();
+    }
+
+    /**
+     * Merges the backend watchlist (oldest first) into the local one.
+     *
+     * @return the tickers the backend added or removed, i.e. changes made on another device
+     */
+    public List<String> reconcile(String userId, List<Symbol> serverSymbols) {
+        List<WatchlistEntry> entries = new ArrayList<>(serverSymbols.size());
+        for (Symbol symbol : serverSymbols) {
+            entries.add(new WatchlistEntry(userId, symbol.getSymbol(), symbol.getAsset(), symbol.getBaseCurrency(), 0));
+        }
+        return watchlistDao.reconcile(userId, entries);
+    }
+
+    public List<String> getPendingSymbols(String userId) {
+        return watchlistDao.getPendingSymbols(userId);
+    }
+
+    /**
+     * The latest refused change. Like any LiveData it holds its last value, so observers compare
+     * against the value present when they subscribed.
+     */
+    public static LiveData<WatchlistUpdateResult> getRejections() {
+        return rejections;
+    }
+
+    public static void postRejection(WatchlistUpdateResult result) {
+        rejections.postValue(result);
+    }
+
+    private void scheduleOutbox() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(WatchlistOutboxWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.SECONDS)
+                .build();
+
+        // Appended rather than kept, so an operation queued as a run finishes still gets sent
+        workManager.enqueueUniqueWork(OUTBOX_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+}
@@ -12,8 +12,8 @@ import java.util.List;
 import backend.ApiService;
 import backend.MainClient;
 import database.roomDB.AppDatabase;
-import models.CachedSymbol;
 import models.Pattern;
+import repositories.SymbolCatalogueSync;
 import retrofit2.Response;
 
 public class SyncWorker extends Worker {
@@ -24,20 +24,23 @@ public class SyncWorker extends Worker {
         super(context, workerParams);
     }
 
-    // In SyncWorker.java -> doWork()
     // In SyncWorker.java -> doWork()
     @NonNull
     @Override
     public Result doWork() {
         try {
             ApiService apiService = MainClient.getApiService();
+            AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+
+            // Symbol catalogue first: search and watchlist hydration read it offline. It is best
+            // effort; a failure is retried by the next periodic run and never holds back patterns.
+            syncCatalogue(apiService, database);
 
             // Fetch patterns from the backend
             Response<List<Pattern>> patternsResponse = apiService.getPatterns().execute();
 
             if (patternsResponse.isSuccessful() && patternsResponse.body() != null) {
                 Log.d(TAG, "Patterns fetched successfully from backend.");
-                AppDatabase database = AppDatabase.getInstance(getApplicationContext());
 
                 // Use the new transaction method to prevent duplicates
                 database.patternDao().syncPatterns(patternsResponse.body());
@@ -53,4 +56,14 @@ public class SyncWorker extends Worker {
             return Result.failure();
         }
     }
+
+    private void syncCatalogue(ApiService apiService, AppDatabase database) {
+        try {
+            if (!new SymbolCatalogueSync(getApplicationContext(), apiService, database.symbolDao()).sync()) {
+                Log.w(TAG, "Symbol catalogue not synced, will try again on the next run");
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Symbol catalogue sync crashed: " + e.getMessage());
+        }
+    }
 }
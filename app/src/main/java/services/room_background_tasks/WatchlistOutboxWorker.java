@@ -0,0 +1,121 @@
+package services.room_background_tasks;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import backend.ApiService;
+import backend.MainClient;
+import backend.WatchlistDao;
+import backend.requests.AddWatchlistRequest;
+import backend.requests.RemoveWatchlistRequest;
+import backend.results.WatchlistUpdateResult;
+import data.remote.MarketDataHub;
+import database.roomDB.AppDatabase;
+import models.WatchlistOutboxOp;
+import okhttp3.ResponseBody;
+import repositories.WatchlistRepository;
+import retrofit2.HttpException;
+
+/**
+ * Replays queued watchlist changes against the backend, oldest first.
+ *
+ * An operation leaves the queue once the backend accepts it, or rejects it with a client error
+ * (e.g. a plan limit or an already removed symbol). A refused add is undone locally and reported
+ * through {@link WatchlistRepository#getRejections()}. Network and server errors stop the run and
+ * let WorkManager retry it with backoff, so the order of operations is kept. Users whose list
+ * changed get their watchlist stream restarted, so the backend streams the new symbols.
+ */
+public class WatchlistOutboxWorker extends Worker {
+
+    private static final String TAG = "WatchlistOutboxWorker";
+
+    public WatchlistOutboxWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ApiService apiService = MainClient.getApiService();
+        WatchlistDao dao = AppDatabase.getInstance(getApplicationContext()).watchlistDao();
+
+        Set<String> changedUsers = new HashSet<>();
+        try {
+            return drain(apiService, dao, changedUsers);
+        } finally {
+            for (String userId : changedUsers) MarketDataHub.refreshWatchlist(userId);
+        }
+    }
+
+    private Result drain(ApiService apiService, WatchlistDao dao, Set<String> changedUsers) {
+        WatchlistOutboxOp op;
+        // Re-reads the queue each time, so operations queued while running are sent too
+        while ((op = dao.nextOp()) != null) {
+            if (isStopped()) return Result.retry();
+            try {
+                if (WatchlistOutboxOp.ADD.equals(op.op)) {
+                    apiService.addToWatchlist(new AddWatchlistRequest(op.userId, op.symbol, op.baseAsset,
+                            op.quoteAsset, op.source)).blockingAwait();
+                } else {
+                    apiService.removeFromWatchlist(new RemoveWatchlistRequest(op.userId, op.symbol)).blockingAwait();
+                }
+                Log.d(TAG, "Synced " + op.op + " of " + op.symbol);
+                changedUsers.add(op.userId);
+                dao.deleteOp(op.id);
+            } catch (HttpException e) {
+                if (e.code() >= 500) {
+                    Log.w(TAG, "Backend error " + e.code() + " for " + op.op + " of " + op.symbol + ", retrying later");
+                    return Result.retry();
+                }
+                Log.e(TAG, "Backend rejected " + op.op + " of " + op.symbol + " with code " + e.code());
+                dao.rejectOp(op);
+                boolean isAdd = WatchlistOutboxOp.ADD.equals(op.op);
+                // Removing a symbol the backend no longer has is what the user wanted anyway
+                if (isAdd || e.code() != 404) {
+                    WatchlistRepository.postRejection(new WatchlistUpdateResult(op.symbol, false, isAdd,
+                            new Exception(rejectionMessage(op, isAdd, e))));
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not sync " + op.op + " of " + op.symbol + ": " + e.getMessage());
+                return Result.retry();
+            }
+        }
+        return Result.success();
+    }
+
+    /**
+     * User-facing reason for a refused operation: the backend's "detail" or "message" if it sent
+     * one, otherwise the status code.
+     */
+    private static String rejectionMessage(WatchlistOutboxOp op, boolean isAdd, HttpException e) {
+        String reason = "HTTP " + e.code();
+        try {
+            ResponseBody body = e.response() != null ? e.response().errorBody() : null;
+            JsonElement json = body != null ? JsonParser.parseString(body.string()) : null;
+            if (json != null && json.isJsonObject()) {
+                JsonObject object = json.getAsJsonObject();
+                for (String field : new String[]{"detail", "message"}) {
+                    if (object.has(field) && object.get(field).isJsonPrimitive()) {
+                        reason = object.get(field).getAsString();
+                        break;
+                    }
+                }
+            }
+        } catch (Exception ignored) {
+            // Not JSON; the status code will do
+        }
+        return "Could not " + (isAdd ? "add " : "remove ") + op.symbol + (isAdd ? " to" : " from")
+                + " your watchlist: " + reason;
+    }
+}
@@ -0,0 +1,24 @@
+package utils;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+import models.CachedSymbol;
+
+public class CachedSymbolDiffCallback extends DiffUtil.ItemCallback<CachedSymbol> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull CachedSymbol oldSymbol, @NonNull CachedSymbol newSymbol) {
+        return oldSymbol.symbol.equals(newSymbol.symbol);
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull CachedSymbol oldSymbol, @NonNull CachedSymbol newSymbol) {
+        // Catalogue fields only; quotes change on every tick and the search row doesn't show them
+        return Objects.equals(oldSymbol.asset, newSymbol.asset)
+                && Objects.equals(oldSymbol.pair, newSymbol.pair)
+                && Objects.equals(oldSymbol.baseCurrency, newSymbol.baseCurrency);
+    }
+}
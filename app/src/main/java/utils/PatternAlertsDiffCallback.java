@@ -1,35 +1,29 @@
 package utils;
 
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 
-import java.util.List;
+import java.util.Objects;
 
 import models.PatternAlert;
-import models.PriceAlert;
 
-public class PatternAlertsDiffCallback extends DiffUtil.Callback{
-    private final List<PatternAlert> oldList;
-    private final List<PatternAlert> newList;
-
-    public PatternAlertsDiffCallback(List<PatternAlert> oldList, List<PatternAlert> newList) {
-        this.oldList = oldList;
-        this.newList = newList;
-    }
-
-    @Override
-    public int getOldListSize() { return oldList.size(); }
-    @Override
-    public int getNewListSize() { return newList.size(); }
+public class PatternAlertsDiffCallback extends DiffUtil.ItemCallback<PatternAlert> {
 
     @Override
-    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-        return oldList.get(oldItemPosition).getSymbol().equals(newList.get(newItemPosition).getSymbol());
+    public boolean areItemsTheSame(@NonNull PatternAlert oldAlert, @NonNull PatternAlert newAlert) {
+        // A symbol can have several alerts, so prefer the alert id when there is one
+        if (oldAlert.getId() != null && newAlert.getId() != null) {
+            return oldAlert.getId().equals(newAlert.getId());
+        }
+        return Objects.equals(oldAlert.getSymbol(), newAlert.getSymbol());
     }
 
     @Override
-    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        PatternAlert oldSymbol = oldList.get(oldItemPosition);
-        PatternAlert newSymbol = newList.get(newItemPosition);
-        return oldSymbol.equals(newSymbol);
+    public boolean areContentsTheSame(@NonNull PatternAlert oldAlert, @NonNull PatternAlert newAlert) {
+        // Alerts are re-fetched as new objects, so compare the fields the row shows
+        return Objects.equals(oldAlert.getSymbol(), newAlert.getSymbol()) &&
+                Objects.equals(oldAlert.getPatternName(), newAlert.getPatternName()) &&
+                Objects.equals(oldAlert.getTimeInterval(), newAlert.getTimeInterval()) &&
+                Objects.equals(oldAlert.getStatus(), newAlert.getStatus());
     }
 }
@@ -1,34 +1,29 @@
 package utils;
 
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 
-import java.util.List;
+import java.util.Objects;
 
 import models.PriceAlert;
 
-public class PriceAlertsDiffCallback extends DiffUtil.Callback{
-    private final List<PriceAlert> oldList;
-    private final List<PriceAlert> newList;
-
-    public PriceAlertsDiffCallback(List<PriceAlert> oldList, List<PriceAlert> newList) {
-        this.oldList = oldList;
-        this.newList = newList;
-    }
-
-    @Override
-    public int getOldListSize() { return oldList.size(); }
-    @Override
-    public int getNewListSize() { return newList.size(); }
+public class PriceAlertsDiffCallback extends DiffUtil.ItemCallback<PriceAlert> {
 
     @Override
-    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-        return oldList.get(oldItemPosition).getSymbol().equals(newList.get(newItemPosition).getSymbol());
+    public boolean areItemsTheSame(@NonNull PriceAlert oldAlert, @NonNull PriceAlert newAlert) {
+        // A symbol can have several alerts, so prefer the alert id when there is one
+        if (oldAlert.getId() != null && newAlert.getId() != null) {
+            return oldAlert.getId().equals(newAlert.getId());
+        }
+        return Objects.equals(oldAlert.getSymbol(), newAlert.getSymbol());
     }
 
     @Override
-    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        PriceAlert oldSymbol = oldList.get(oldItemPosition);
-        PriceAlert newSymbol = newList.get(newItemPosition);
-        return oldSymbol.equals(newSymbol);
+    public boolean areContentsTheSame(@NonNull PriceAlert oldAlert, @NonNull PriceAlert newAlert) {
+        // Alerts are re-fetched as new objects, so compare the fields the row shows
+        return Objects.equals(oldAlert.getSymbol(), newAlert.getSymbol()) &&
+                Objects.equals(oldAlert.getConditionType(), newAlert.getConditionType()) &&
+                Double.compare(oldAlert.getConditionValue(), newAlert.getConditionValue()) == 0 &&
+                Objects.equals(oldAlert.getStatus(), newAlert.getStatus());
     }
 }
@@ -1,37 +1,35 @@
 package utils;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
 
-import java.util.List;
-
 import models.Symbol;
 
 /**
- * Efficiently compares two lists of Symbol items for RecyclerView updates.
+ * Compares Symbol items for RecyclerView updates. Used by the adapters' AsyncListDiffer, so the
+ * diff runs on a background thread.
  */
-public class SymbolDiffCallback extends DiffUtil.Callback {
-    private final List<Symbol> oldList;
-    private final List<Symbol> newList;
-
-    public SymbolDiffCallback(List<Symbol> oldList, List<Symbol> newList) {
-        this.oldList = oldList;
-        this.newList = newList;
-    }
+public class SymbolDiffCallback extends DiffUtil.ItemCallback<Symbol> {
+    /**
+     * Change payload for rows where only the price/change fields moved.
+     */
+    public static final String PAYLOAD_PRICE = "payload_price";
 
     @Override
-    public int getOldListSize() { return oldList.size(); }
-    @Override
-    public int getNewListSize() { return newList.size(); }
+    public boolean areItemsTheSame(@NonNull Symbol oldSymbol, @NonNull Symbol newSymbol) {
+        return oldSymbol.getSymbol().equals(newSymbol.getSymbol());
+    }
 
     @Override
-    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-        return oldList.get(oldItemPosition).getSymbol().equals(newList.get(newItemPosition).getSymbol());
+    public boolean areContentsTheSame(@NonNull Symbol oldSymbol, @NonNull Symbol newSymbol) {
+        return oldSymbol.equals(newSymbol); // Relies on Symbol.equals including isInWatchlist
     }
 
+    @Nullable
     @Override
-    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-        Symbol oldSymbol = oldList.get(oldItemPosition);
-        Symbol newSymbol = newList.get(newItemPosition);
-        return oldSymbol.equals(newSymbol); // Relies on Symbol.equals including isInWatchlist
+    public Object getChangePayload(@NonNull Symbol oldSymbol, @NonNull Symbol newSymbol) {
+        // Price ticks only rebind the price views instead of the whole row
+        return oldSymbol.differsOnlyInPrice(newSymbol) ? PAYLOAD_PRICE : null;
     }
-}
\ No newline at end of file
+}
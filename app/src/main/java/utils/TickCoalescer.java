@@ -0,0 +1,95 @@
+package utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collapses bursts of price ticks into at most one UI update per display frame.
+ *
+ * Ticks can be offered from any thread (normally the socket reader thread). Only the latest
+ * price/change per ticker is kept, and the batch is handed to the {@link Sink} on the main
+ * thread at the next frame, but never more often than the configured minimum interval.
+ */
+public final class TickCoalescer {
+
+    /**
+     * Receives a batch of the latest ticks per ticker, on the main thread.
+     */
+    public interface Sink {
+        void onTicks(Map<String, Tick> ticks);
+    }
+
+    public static final class Tick {
+        public final double price;
+        public final double change;
+
+        Tick(double price, double change) {
+            this.price = price;
+            this.change = change;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long minIntervalMs;
+    private final Sink sink;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush();
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(frameCallback);
+
+    // Guarded by this
+    private Map<String, Tick> pending = new HashMap<>();
+    private boolean scheduled;
+
+    private volatile long lastFlushAt;
+
+    /**
+     * @param minIntervalMs minimum time between two flushes; 0 flushes on every frame that
+     *                      has pending ticks
+     */
+    public TickCoalescer(long minIntervalMs, Sink sink) {
+        this.minIntervalMs = minIntervalMs;
+        this.sink = sink;
+    }
+
+    public void offer(String ticker, double price, double change) {
+        synchronized (this) {
+            pending.put(ticker, new Tick(price, change));
+            if (scheduled) return;
+            scheduled = true;
+        }
+        long wait = minIntervalMs - (SystemClock.uptimeMillis() - lastFlushAt);
+        if (wait > 0) {
+            mainHandler.postDelayed(scheduleFrame, wait);
+        } else {
+            mainHandler.post(scheduleFrame);
+        }
+    }
+
+    /**
+     * Drops pending ticks. Must be called on the main thread.
+     */
+    public void cancel() {
+        mainHandler.removeCallbacks(scheduleFrame);
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        synchronized (this) {
+            pending.clear();
+            scheduled = false;
+        }
+    }
+
+    private void flush() {
+        Map<String, Tick> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new HashMap<>();
+            scheduled = false;
+        }
+        lastFlushAt = SystemClock.uptimeMillis();
+        if (!batch.isEmpty()) sink.onTicks(batch);
+    }
+}
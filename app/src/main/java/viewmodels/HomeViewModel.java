@@ -26,9 +26,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -37,22 +35,20 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
-import backend.requests.AddWatchlistRequest;
-import backend.requests.RemoveWatchlistRequest;
 import backend.results.WatchlistUpdateResult;
-import io.reactivex.android.schedulers.AndroidSchedulers;
+import data.remote.MarketDataHub;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.schedulers.Schedulers;
 import kotlinx.coroutines.CoroutineScope;
 import models.Symbol;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
+import repositories.QuoteCache;
 import repositories.SymbolRepository;
+import repositories.WatchlistRepository;
 import retrofit2.Call;
 import timber.log.Timber;
+import utils.TickCoalescer;
 
 /**
  * ViewModel for handling cryptocurrency data operations and exposing data to the UI.
@@ -63,7 +59,6 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
     public static final String TAG = "HomeViewModel";
     private final MutableLiveData<WatchlistUpdateResult> watchlistUpdateResult = new MutableLiveData<>();
     private final MutableLiveData<List<Symbol>> watchlist = new MutableLiveData<>();
-    private final Set<String> watchlistSymbolTickers = new HashSet<>(); // For quick lookup
     private final MutableLiveData<List<Symbol>> cryptoList = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> isWatchlistLoading = new MutableLiveData<>(false);
@@ -73,22 +68,44 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
     private final List<Symbol> allCryptos = new ArrayList<>();
     private Call<List<Symbol>> currentSearchCall;
     private final SymbolRepository repository;
+    private final WatchlistRepository watchlistRepository;
     private boolean inBackground = false;
     private final MutableLiveData<List<Symbol>> searchResults = new MutableLiveData<>();
+    // The latest search; results of older ones are dropped. Main thread only.
+    private LiveData<List<Symbol>> currentSearch;
+    // Keyed views of the two lists; all list changes go through these on the main thread
+    private final SymbolListStore watchlistStore = new SymbolListStore(watchlist);
+    private final SymbolListStore searchStore = new SymbolListStore(searchResults);
     private final CompositeDisposable disposables = new CompositeDisposable(); // For RxJava
-    private WebSocket webSocketClient;
-    private final OkHttpClient okHttpClient = new OkHttpClient();
+    private MarketDataHub.Subscription watchlistSubscription;
 
     // Added for subscription type and limit checking
     private String subscriptionType;
-    // NEW: Add method to preserve current prices during reconnection
-    private final Map<String, Double> lastKnownPrices = new HashMap<>();
-    private final Map<String, Double> lastKnownChanges = new HashMap<>();
+    // Latest price per ticker, shared with the chart screen
+    private final QuoteCache quoteCache;
 
     private boolean isWebSocketConnected = false;
+    // Tickers in the current stream's init snapshot, or null before it arrives. Main thread only.
+    @Nullable
+    private Set<String> streamedTickers;
+
+    // Watchlist ticks are applied in batches, at most once per frame and every TICK_FLUSH_INTERVAL_MS
+    private static final long TICK_FLUSH_INTERVAL_MS = 100;
+    private final TickCoalescer tickCoalescer = new TickCoalescer(TICK_FLUSH_INTERVAL_MS, this::applyTicks);
+
+    // User whose watchlist is loaded, for reloads triggered by the outbox. Main thread only.
+    @Nullable
+    private String watchlistUserId;
+    // Refusals already present when this view model started observing are not reported again
+    @Nullable
+    private final WatchlistUpdateResult rejectionAtStart = WatchlistRepository.getRejections().getValue();
+    private final Observer<WatchlistUpdateResult> rejectionObserver = this::onChangeRejected;
 
     public HomeViewModel(@NonNull Application application) {
         repository = new SymbolRepository(application);
+        watchlistRepository = new WatchlistRepository(application);
+        quoteCache = QuoteCache.getInstance(application);
+        WatchlistRepository.getRejections().observeForever(rejectionObserver);
     }
 
     private List<Symbol> getPaginatedData() {
@@ -119,21 +136,29 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
     public void searchCryptos(String query, int limit) {
         isLoading.postValue(true);
         LiveData<List<Symbol>> liveData = repository.searchCrypto(query, limit);
+        currentSearch = liveData;
         Observer<List<Symbol>> observer = new Observer<List<Symbol>>() {
             @Override
             public void onChanged(List<Symbol> results) {
+                liveData.removeObserver(this);
+                // A superseded search must not overwrite the newer one's rows or loading state
+                if (liveData != currentSearch) return;
+                List<Symbol> rows = null;
                 if (results != null) {
-                    for (Symbol symbol : results) {
-                        symbol.setInWatchlist(watchlistSymbolTickers.contains(symbol.getSymbol()));
+                    rows = new ArrayList<>(results.size());
+                    for (Symbol result : results) {
+                        // Results can be shared through the search cache, so the rows are copies
+                        Symbol row = new Symbol(result);
+                        row.setInWatchlist(watchlistStore.contains(row.getSymbol()));
+                        // Search rows may be cached for a while; a streamed price wins over them
+                        if (quoteCache.offer(result) != null) quoteCache.applyTo(row);
+                        rows.add(row);
                     }
                     // NEW: Cache search results in the database
                     repository.cacheSymbols(results);
-                    searchResults.postValue(results);
-                } else {
-                    searchResults.postValue(null);
                 }
+                searchStore.setAll(rows);
                 isLoading.postValue(false);
-                liveData.removeObserver(this);
                 if (results == null) {
                     errorMessage.postValue("Failed to fetch results");
                 }
@@ -147,18 +172,11 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
         liveData.observeForever(new Observer<Symbol>() {
             @Override
             public void onChanged(Symbol detailedSymbol) {
-                if (detailedSymbol != null) {
-                    // Update the watchlist with the detailed symbol if it exists there
-                    List<Symbol> currentWatchlist = watchlist.getValue();
-                    if (currentWatchlist != null) {
-                        for (int i = 0; i < currentWatchlist.size(); i++) {
-                            if (currentWatchlist.get(i).getSymbol().equals(detailedSymbol.getSymbol())) {
-                                currentWatchlist.set(i, detailedSymbol);
-                                watchlist.postValue(new ArrayList<>(currentWatchlist));
-                                break;
-                            }
-                        }
-                    }
+                if (detailedSymbol != null && watchlistStore.contains(detailedSymbol.getSymbol())) {
+                    // Update the watchlist row with the detailed symbol
+                    detailedSymbol.setInWatchlist(true);
+                    quoteCache.applyTo(detailedSymbol);
+                    watchlistStore.replace(detailedSymbol);
                     // The symbol is already cached in fetchSymbolDetails
                 }
                 liveData.removeObserver(this);
@@ -223,8 +241,7 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
         }
 
         int limit = getWatchlistLimit(subscriptionType);
-        List<Symbol> currentWatchlist = watchlist.getValue();
-        int currentSize = currentWatchlist != null ? currentWatchlist.size() : 0;
+        int currentSize = watchlistStore.size();
 
         // If limit is not unlimited (-1) and current size meets or exceeds limit
         if (limit != -1 && currentSize >= limit) {
@@ -240,89 +257,33 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
             return;
         }
 
-        AddWatchlistRequest request = new AddWatchlistRequest(userID, symbolToAdd.getSymbol(), symbolToAdd.getBaseCurrency(), symbolToAdd.getAsset(), source);
-
-        disposables.add(repository.addToWatchlist(request)
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(() -> {
-                    Timber.d("API: Added %s to watchlist", symbolToAdd.getSymbol());
-                    // SUCCESS: Now, reload the watchlist from the source of truth.
-                    // This ensures data consistency and re-initializes the WebSocket correctly.
-                    loadWatchlist(userID);
+        Symbol row = new Symbol(symbolToAdd);
+        row.setInWatchlist(true);
+        // The list and the local table change at once; the backend catches up through the outbox
+        watchlistStore.prepend(row);
+        searchStore.setInWatchlist(symbolToAdd.getSymbol(), true);
+        executor.execute(() -> watchlistRepository.add(userID, symbolToAdd, source));
+        Timber.d("Added %s to watchlist, queued for sync", symbolToAdd.getSymbol());
 
-                    // Also, update the flag in the currently displayed search results for instant UI feedback there.
-                    updateIsInWatchlistInList(searchResults, symbolToAdd.getSymbol(), true);
-
-                    watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolToAdd, true, true, null));
-                }, throwable -> {
-                    Timber.e(throwable, "API: Failed to add %s to watchlist", symbolToAdd.getSymbol());
-                    watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolToAdd, false, true, throwable));
-                }));
+        watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolToAdd, true, true, null));
     }
 
     public void removeFromWatchlist(String userID, String symbolTickerToRemove) {
-        RemoveWatchlistRequest request = new RemoveWatchlistRequest(userID, symbolTickerToRemove);
-
-        disposables.add(repository.removeFromWatchlist(request)
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(() -> {
-                    Timber.d("API: Removed %s from watchlist", symbolTickerToRemove);
-                    // SUCCESS: Reload the watchlist to ensure consistency.
-                    loadWatchlist(userID);
-
-                    // Update the flag in the search results list.
-                    updateIsInWatchlistInList(searchResults, symbolTickerToRemove, false);
-
-                    watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolTickerToRemove, true, false, null));
-                }, throwable -> {
-                    Timber.e(throwable, "API: Failed to remove %s from watchlist", symbolTickerToRemove);
-                    watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolTickerToRemove, false, false, throwable));
-                }));
-    }
-
-    /**
-     * Updates the 'isInWatchlist' flag for a specific symbol within a given LiveData list.
-     * This is used to provide immediate feedback on the search results list without re-fetching it.
-     */
-    private void updateIsInWatchlistInList(MutableLiveData<List<Symbol>> listLiveData, String symbolTicker, boolean newStatus) {
-        List<Symbol> currentList = listLiveData.getValue();
-        if (currentList == null || currentList.isEmpty()) return;
-
-        boolean changed = false;
-        for (Symbol symbol : currentList) {
-            if (symbol.getSymbol().equals(symbolTicker)) {
-                if (symbol.isInWatchlist() != newStatus) {
-                    symbol.setInWatchlist(newStatus);
-                    changed = true;
-                }
-                break; // Symbol found, exit loop
-            }
-        }
+        watchlistStore.remove(symbolTickerToRemove);
+        searchStore.setInWatchlist(symbolTickerToRemove, false);
+        executor.execute(() -> watchlistRepository.remove(userID, symbolTickerToRemove));
+        Timber.d("Removed %s from watchlist, queued for sync", symbolTickerToRemove);
 
-        if (changed) {
-            // Post the modified list to trigger UI update.
-            listLiveData.postValue(new ArrayList<>(currentList));
-        }
+        watchlistUpdateResult.postValue(new WatchlistUpdateResult(symbolTickerToRemove, true, false, null));
     }
 
-    private void preserveCurrentPrices() {
-        List<Symbol> currentWatchlist = watchlist.getValue();
-        if (currentWatchlist != null) {
-            for (Symbol symbol : currentWatchlist) {
-                lastKnownPrices.put(symbol.getSymbol(), symbol.getPrice());
-                lastKnownChanges.put(symbol.getSymbol(), symbol.getChange());
-            }
-        }
-    }
-
-    private void restorePreservedPrices(List<Symbol> symbols) {
+    private void restoreCachedPrices() {
+        List<Symbol> symbols = watchlistStore.getRows();
+        if (symbols == null) return;
         for (Symbol symbol : symbols) {
-            if (symbol.getPrice() == 0.0 && lastKnownPrices.containsKey(symbol.getSymbol())) {
-                symbol.setPrice(lastKnownPrices.get(symbol.getSymbol()));
-                symbol.setChange(lastKnownChanges.get(symbol.getSymbol()));
-            }
+            if (symbol.getPrice() != 0.0) continue;
+            Symbol restored = new Symbol(symbol);
+            if (quoteCache.applyTo(restored)) watchlistStore.replace(restored);
         }
     }
 
@@ -339,17 +300,18 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
                     double price = stockData.getDouble("price");
                     double change = stockData.getDouble("change");
 
-                    // FIXED: If price is 0 or missing, use preserved price as fallback
-                    if (price == 0.0 && lastKnownPrices.containsKey(symbol)) {
-                        price = lastKnownPrices.get(symbol);
-                        change = lastKnownChanges.get(symbol);
-                    }
-
-                    List<Double> sparklineData = parseSparklineFromObject(stockData);
+                    float[] sparklineData = parseSparklineFromObject(stockData);
                     Symbol s = new Symbol(symbol, asset, "", baseCurrency, price, change, price, change, 0.0, sparklineData, true);
+                    // If price is 0 or missing, fall back to the last known quote
+                    if (price == 0.0) {
+                        quoteCache.applyTo(s);
+                    } else {
+                        quoteCache.put(s);
+                    }
                     newWatchlist.add(s);
                 }
-                watchlist.postValue(newWatchlist);
+                // Frames arrive on the socket thread; the store is only touched on the main thread
+                handler.post(() -> applyStreamSnapshot(newWatchlist));
                 // Cache the updated data in Room
                 repository.cacheSymbols(newWatchlist);
             }
@@ -358,6 +320,24 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
         }
     }
 
+    /**
+     * Applies the stream's init snapshot. The local list decides which symbols are shown, since
+     * it may hold changes the backend has not seen yet; the snapshot only refreshes their rows.
+     */
+    private void applyStreamSnapshot(List<Symbol> streamed) {
+        streamedTickers = new HashSet<>();
+        for (Symbol symbol : streamed) {
+            streamedTickers.add(symbol.getSymbol());
+        }
+        if (watchlistStore.getRows() == null) {
+            watchlistStore.setAll(streamed);
+            return;
+        }
+        for (Symbol symbol : streamed) {
+            watchlistStore.replace(symbol);
+        }
+    }
+
     public void connectToWatchlistWebSocketIfNeeded(String userId) {
         if (!isWebSocketConnected) {
             connectToWatchlistWebSocket(userId);
@@ -366,15 +346,11 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
 
     // Update the existing connectToWatchlistWebSocket method
     public void connectToWatchlistWebSocket(String userId) {
-        if (webSocketClient == null && !isWebSocketConnected) {
-            // Preserve current prices before connecting
-            preserveCurrentPrices();
-
-            String wsUrl = "wss://stable-wholly-crappie.ngrok-free.app/api/v1/ws/watchlist/" + userId;
-            Log.i("WebSocketDebug", "Connecting to WebSocket: " + wsUrl);
+        if (watchlistSubscription == null && !isWebSocketConnected) {
+            Log.i("WebSocketDebug", "Subscribing to watchlist stream for: " + userId);
 
-            Request request = new Request.Builder().url(wsUrl).build();
-            webSocketClient = okHttpClient.newWebSocket(request, new WebSocketListener() {
+            // The hub shares one socket per user across every screen that shows the watchlist
+            watchlistSubscription = MarketDataHub.getInstance().subscribeToWatchlist(userId, new WebSocketListener() {
                 @Override
                 public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
                     Log.i("WebSocketDebug", "WebSocket connected: " + response);
@@ -394,7 +370,7 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
                                 String symbol = json.getString("symbol");
                                 double price = json.getDouble("price");
                                 double change = json.getDouble("change");
-                                updateSymbolDataInLists(symbol, price, change, null);
+                                tickCoalescer.offer(symbol, price, change);
                                 break;
                             case "error":
                                 errorMessage.postValue(json.optString("message"));
@@ -423,23 +399,21 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
                     Log.e("WebSocketDebug", message, t);
                     isWebSocketConnected = false;
 
-                    // On WebSocket failure, restore preserved prices to prevent showing zeros
-                    List<Symbol> currentWatchlist = watchlist.getValue();
-                    if (currentWatchlist != null) {
-                        restorePreservedPrices(currentWatchlist);
-                        watchlist.postValue(new ArrayList<>(currentWatchlist));
-                    }
+                    // On WebSocket failure, restore cached prices to prevent showing zeros.
+                    // The hub reconnects by itself and the new init snapshot refreshes the rows.
+                    handler.post(() -> restoreCachedPrices());
                 }
             });
         }
     }
 
     public void disconnectWebSocket() {
-        if (webSocketClient != null) {
+        if (watchlistSubscription != null) {
             Log.i("WebSocketDebug", "Disconnecting WebSocket.");
-            webSocketClient.close(1000, "User initiated disconnect");
-            webSocketClient = null;
+            watchlistSubscription.cancel();
+            watchlistSubscription = null;
             isWebSocketConnected = false;
+            streamedTickers = null;
         }
     }
 
@@ -447,18 +421,23 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
 
     public void loadWatchlist(String userId) {
         fetchSubscriptionType(userId); // This can stay
+        watchlistUserId = userId;
 
         // REFINED: Only show the main progress bar if the watchlist is currently empty.
         // This makes subsequent refreshes (on resume, after an add/remove) silent.
-        final boolean isInitialLoad = watchlist.getValue() == null || watchlist.getValue().isEmpty();
+        final boolean isInitialLoad = watchlistStore.size() == 0;
         if (isInitialLoad) {
             isWatchlistLoading.postValue(true);
-        }
-
-        // FIXED: First check if we have current watchlist data to preserve prices
-        List<Symbol> currentWatchlist = watchlist.getValue();
-        if (currentWatchlist != null) {
-            preserveCurrentPrices(); // Store current prices before loading
+            // Offline-first: show the local copy at once; the backend list is merged in below
+            executor.execute(() -> {
+                List<Symbol> localWatchlist = watchlistRepository.getLocalWatchlist(userId);
+                handler.post(() -> {
+                    if (localWatchlist.isEmpty() || watchlistStore.getRows() != null) return;
+                    watchlistStore.setAll(localWatchlist);
+                    isWatchlistLoading.setValue(false);
+                    connectToWatchlistWebSocketIfNeeded(userId);
+                });
+            });
         }
 
         LiveData<List<Symbol>> apiLiveData = repository.getWatchlist(userId);
@@ -466,89 +445,106 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
             @Override
             public void onChanged(List<Symbol> symbolsFromApi) {
                 apiLiveData.removeObserver(this);
-                if (symbolsFromApi != null) {
-                    List<String> tickers = new ArrayList<>();
-                    for (Symbol s : symbolsFromApi) {
-                        tickers.add(s.getSymbol());
-                    }
-                    // Load cached symbols in the background
-                    executor.execute(() -> {
-                        List<Symbol> cachedSymbols = repository.getCachedSymbolsByTickers(tickers);
-                        // Switch back to the main thread to update LiveData
-                        handler.post(() -> {
-                            Map<String, Symbol> cachedMap = new HashMap<>();
-                            for (Symbol cached : cachedSymbols) {
-                                cachedMap.put(cached.getSymbol(), cached);
-                            }
-                            List<Symbol> initialWatchlist = new ArrayList<>();
-                            for (Symbol apiSymbol : symbolsFromApi) {
-                                Symbol symbolToAdd = cachedMap.getOrDefault(apiSymbol.getSymbol(), apiSymbol);
-                                if (symbolToAdd == null) return;
-
-                                // FIXED: If cached symbol has zero price, try to restore from preserved prices
-                                if (symbolToAdd.getPrice() == 0.0 && lastKnownPrices.containsKey(symbolToAdd.getSymbol())) {
-                                    symbolToAdd.setPrice(lastKnownPrices.get(symbolToAdd.getSymbol()));
-                                    symbolToAdd.setChange(lastKnownChanges.get(symbolToAdd.getSymbol()));
-                                }
-
-                                symbolToAdd.setInWatchlist(true);
-                                initialWatchlist.add(symbolToAdd);
-                            }
-                            Collections.reverse(initialWatchlist);
-                            watchlist.postValue(initialWatchlist);
-                            watchlistSymbolTickers.clear();
-                            for (Symbol s : initialWatchlist) {
-                                watchlistSymbolTickers.add(s.getSymbol());
-                            }
-
-                            // Always turn off the loading state, even if it was never turned on.
-                            isWatchlistLoading.postValue(false);
-
-                            disconnectWebSocket();
-                            connectToWatchlistWebSocket(userId);
-                        });
-                    });
-                } else {
-                    watchlist.postValue(new ArrayList<>());
-                    // Always turn off loading state on failure.
+                if (symbolsFromApi == null) {
+                    // Offline or backend error: keep showing the local list
                     isWatchlistLoading.postValue(false);
+                    return;
                 }
+
+                List<Symbol> serverOrder = new ArrayList<>(symbolsFromApi);
+                executor.execute(() -> {
+                    List<String> changed = watchlistRepository.reconcile(userId, serverOrder);
+                    List<Symbol> localWatchlist = watchlistRepository.getLocalWatchlist(userId);
+                    Set<String> pending = new HashSet<>(watchlistRepository.getPendingSymbols(userId));
+                    handler.post(() -> {
+                        if (!changed.isEmpty()) Timber.d("Watchlist changed on the backend: %s", changed);
+                        applyLocalWatchlist(localWatchlist);
+
+                        // Always turn off the loading state, even if it was never turned on.
+                        isWatchlistLoading.postValue(false);
+
+                        // The stream only needs a new handshake if it misses a symbol the backend already
+                        // has (e.g. added on another device); pending ones are handled by the outbox worker
+                        if (isMissingFromStream(localWatchlist, pending)) {
+                            MarketDataHub.refreshWatchlist(userId);
+                        }
+                        connectToWatchlistWebSocketIfNeeded(userId);
+                    });
+                });
             }
         });
     }
 
-    private List<Double> parseSparklineFromObject(JSONObject stockData) {
-        List<Double> sparklineData = new ArrayList<>();
+    /**
+     * Publishes the reconciled local watchlist. Rows already shown are kept as they are, so
+     * live prices survive; new rows take the latest quote, which is never older than Room's.
+     */
+    private void applyLocalWatchlist(List<Symbol> localWatchlist) {
+        List<Symbol> merged = new ArrayList<>(localWatchlist.size());
+        for (Symbol symbol : localWatchlist) {
+            Symbol shown = watchlistStore.get(symbol.getSymbol());
+            if (shown != null) {
+                merged.add(shown);
+                continue;
+            }
+            quoteCache.applyTo(symbol);
+            merged.add(symbol);
+        }
+        watchlistStore.setAll(merged);
+    }
+
+    /**
+     * The backend refused a queued add or remove. The outbox worker has already undone a refused
+     * add in the local table, so the list is rebuilt from it and the user is told why.
+     */
+    private void onChangeRejected(@Nullable WatchlistUpdateResult rejection) {
+        if (rejection == null || rejection == rejectionAtStart) return;
+        String ticker = rejection.getTickerSymbol();
+        String userId = watchlistUserId;
+        if (userId != null) {
+            executor.execute(() -> {
+                List<Symbol> localWatchlist = watchlistRepository.getLocalWatchlist(userId);
+                handler.post(() -> {
+                    applyLocalWatchlist(localWatchlist);
+                    searchStore.setInWatchlist(ticker, watchlistStore.contains(ticker));
+                });
+            });
+        }
+        watchlistUpdateResult.postValue(rejection);
+    }
+
+    private boolean isMissingFromStream(List<Symbol> localWatchlist, Set<String> pending) {
+        if (!isWebSocketConnected || streamedTickers == null) return false;
+        for (Symbol symbol : localWatchlist) {
+            String ticker = symbol.getSymbol();
+            if (!pending.contains(ticker) && !streamedTickers.contains(ticker)) return true;
+        }
+        return false;
+    }
+
+    private float[] parseSparklineFromObject(JSONObject stockData) {
         try {
             JSONArray sparklineArray = stockData.getJSONArray("sparkline");
+            float[] sparklineData = new float[sparklineArray.length()];
             for (int i = 0; i < sparklineArray.length(); i++) {
-                sparklineData.add(sparklineArray.getDouble(i));
+                sparklineData[i] = (float) sparklineArray.getDouble(i);
             }
+            return sparklineData;
         } catch (JSONException e) {
             Log.e("WebSocketDebug", "Error parsing sparkline from stock object", e);
+            return new float[0];
         }
-        return sparklineData;
-    }
-
-    private void updateSymbolDataInLists(String symbolTicker, double newPrice, double newChange, @Nullable List<Double> newSparkline) {
-        Log.d("WebSocketDebug", "Updating symbol " + symbolTicker + " in lists");
-        updateSingleList(watchlist.getValue(), watchlist, symbolTicker, newPrice, newChange, newSparkline);
-        updateSingleList(searchResults.getValue(), searchResults, symbolTicker, newPrice, newChange, newSparkline);
     }
 
-    private void updateSingleList(List<Symbol> list, MutableLiveData<List<Symbol>> liveData, String symbolTicker, double newPrice, double newChange, @Nullable List<Double> newSparkline) {
-        if (list == null) return;
-        for (Symbol s : list) {
-            if (s.getSymbol().equals(symbolTicker)) {
-                s.setPrice(newPrice);
-                s.setChange(newChange);
-                if (newSparkline != null) {
-                    s.setSparkline(newSparkline);
-                }
-                break;
-            }
+    /**
+     * Applies a batch of coalesced ticks to both lists. Runs on the main thread.
+     */
+    private void applyTicks(Map<String, TickCoalescer.Tick> ticks) {
+        for (Map.Entry<String, TickCoalescer.Tick> entry : ticks.entrySet()) {
+            quoteCache.put(entry.getKey(), entry.getValue().price, entry.getValue().change);
         }
-        liveData.postValue(list);
+        watchlistStore.applyTicks(ticks);
+        searchStore.applyTicks(ticks);
     }
 
     // --- LiveData Getters ---
@@ -579,7 +575,9 @@ public class HomeViewModel extends ViewModel implements LifecycleEventObserver {
     @Override
     protected void onCleared() {
         super.onCleared();
+        WatchlistRepository.getRejections().removeObserver(rejectionObserver);
         disposables.clear();
+        tickCoalescer.cancel();
         disconnectWebSocket();
     }
 
@@ -30,6 +30,14 @@ public class StreamViewModel extends ViewModel implements LifecycleEventObserver
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
+    // A stream left in the background this long is disconnected, and reconnected on return
+    private static final long PAUSE_AFTER_MS = 60_000;
+    private final Runnable pauseStream = this::pauseInBackground;
+    private boolean pausedInBackground = false;
+    private String streamSymbol;
+    private String streamInterval;
+    private boolean streamIncludeOhlcv;
+
     public StreamViewModel(StreamRepository repository) {
         this.repository = repository;
     }
@@ -43,12 +51,17 @@ public class StreamViewModel extends ViewModel implements LifecycleEventObserver
     }
 
     public void connect(String symbol, String interval, boolean include_ohlcv) {
+        streamSymbol = symbol;
+        streamInterval = interval;
+        streamIncludeOhlcv = include_ohlcv;
+        isConnected = true;
         repository.connect(symbol, interval, include_ohlcv);
     }
 
     @Override
     protected void onCleared() {
         super.onCleared();
+        mainHandler.removeCallbacks(pauseStream);
         repository.disconnect();
     }
 
@@ -63,7 +76,17 @@ public class StreamViewModel extends ViewModel implements LifecycleEventObserver
 
     public void disconnect() {
         isConnected = false;
+        pausedInBackground = false;
+        mainHandler.removeCallbacks(pauseStream);
+        repository.disconnect();
+    }
+
+    private void pauseInBackground() {
+        if (!isConnected || !inBackground) return;
+        Timber.d("Pausing stream for %s while in background", streamSymbol);
         repository.disconnect();
+        isConnected = false;
+        pausedInBackground = true;
     }
 
     /**
@@ -80,14 +103,20 @@ public class StreamViewModel extends ViewModel implements LifecycleEventObserver
     }
 
     private void handleBackgroundState() {
-        // Pause WebSocket updates
+        // Pause WebSocket updates after a grace period, so quick app switches keep the stream
         setInBackground(true);
+        mainHandler.postDelayed(pauseStream, PAUSE_AFTER_MS);
         Timber.d("App moved to background");
     }
 
     private void handleForegroundState() {
         // Resume WebSocket updates
         setInBackground(false);
+        mainHandler.removeCallbacks(pauseStream);
+        if (pausedInBackground) {
+            pausedInBackground = false;
+            connect(streamSymbol, streamInterval, streamIncludeOhlcv);
+        }
         Timber.d("App returned to foreground");
     }
 }
@@ -0,0 +1,138 @@
+package viewmodels;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import models.Symbol;
+import utils.TickCoalescer;
+
+/**
+ * Keyed state of one symbol list shown by {@link HomeViewModel} (the watchlist or the search
+ * results).
+ *
+ * Keeps a ticker -> position index next to the rows, so a tick, a watchlist flag change or a
+ * detail refresh finds its row directly instead of scanning the list. Rows are treated as
+ * immutable: a changed row is replaced by an updated copy and a new list is published, so the
+ * adapter diff only rebinds that row. Main thread only.
+ */
+final class SymbolListStore {
+
+    private final MutableLiveData<List<Symbol>> liveData;
+    private final Map<String, Integer> index = new HashMap<>();
+    @Nullable
+    private List<Symbol> rows;
+
+    SymbolListStore(MutableLiveData<List<Symbol>> liveData) {
+        this.liveData = liveData;
+    }
+
+    @Nullable
+    List<Symbol> getRows() {
+        return rows;
+    }
+
+    int size() {
+        return rows != null ? rows.size() : 0;
+    }
+
+    boolean contains(String ticker) {
+        return index.containsKey(ticker);
+    }
+
+    @Nullable
+    Symbol get(String ticker) {
+        Integer position = index.get(ticker);
+        return position != null && rows != null ? rows.get(position) : null;
+    }
+
+    /**
+     * Replaces the whole list. A null list is published as is (e.g. a failed search).
+     */
+    void setAll(@Nullable List<Symbol> symbols) {
+        index.clear();
+        rows = symbols != null ? new ArrayList<>(symbols) : null;
+        if (rows != null) {
+            for (int i = 0; i < rows.size(); i++) {
+                index.put(rows.get(i).getSymbol(), i);
+            }
+        }
+        liveData.setValue(rows);
+    }
+
+    /**
+     * Replaces the row with the same ticker, if the list has one.
+     */
+    boolean replace(Symbol symbol) {
+        Integer position = index.get(symbol.getSymbol());
+        if (position == null || rows == null || rows.get(position).equals(symbol)) return false;
+        List<Symbol> updated = new ArrayList<>(rows);
+        updated.set(position, symbol);
+        publish(updated);
+        return true;
+    }
+
+    /**
+     * Inserts a row at the top, unless the list already has the ticker.
+     */
+    boolean prepend(Symbol symbol) {
+        if (contains(symbol.getSymbol())) return false;
+        List<Symbol> updated = new ArrayList<>(size() + 1);
+        updated.add(symbol);
+        if (rows != null) updated.addAll(rows);
+        setAll(updated);
+        return true;
+    }
+
+    boolean remove(String ticker) {
+        Integer position = index.get(ticker);
+        if (position == null || rows == null) return false;
+        List<Symbol> updated = new ArrayList<>(rows);
+        updated.remove((int) position);
+        // Positions after the removed row shift, so the index is rebuilt
+        setAll(updated);
+        return true;
+    }
+
+    boolean setInWatchlist(String ticker, boolean inWatchlist) {
+        Symbol current = get(ticker);
+        if (current == null || current.isInWatchlist() == inWatchlist) return false;
+        Symbol copy = new Symbol(current);
+        copy.setInWatchlist(inWatchlist);
+        return replace(copy);
+    }
+
+    /**
+     * Applies a batch of ticks, touching only the rows they name. Publishes at most once.
+     */
+    void applyTicks(Map<String, TickCoalescer.Tick> ticks) {
+        if (rows == null || rows.isEmpty()) return;
+
+        List<Symbol> updated = null;
+        for (Map.Entry<String, TickCoalescer.Tick> entry : ticks.entrySet()) {
+            Integer position = index.get(entry.getKey());
+            if (position == null) continue;
+
+            TickCoalescer.Tick tick = entry.getValue();
+            Symbol current = rows.get(position);
+            if (current.getPrice() == tick.price && current.getChange() == tick.change) continue;
+
+            if (updated == null) updated = new ArrayList<>(rows);
+            Symbol copy = new Symbol(current);
+            copy.setPrice(tick.price);
+            copy.setChange(tick.change);
+            updated.set(position, copy);
+        }
+        if (updated != null) publish(updated);
+    }
+
+    private void publish(List<Symbol> updated) {
+        // Positions are unchanged by in-place row replacement, so the index stays valid
+        rows = updated;
+        liveData.setValue(updated);
+    }
+}
@@ -15,6 +15,7 @@ import org.json.JSONObject;
 import java.util.HashMap;
 import java.util.Map;
 
+import backend.NetworkModule;
 import backend.TelegramAuthService;
 import models.User;
 import retrofit2.Call;
@@ -53,6 +54,7 @@ public class TelegramAuthViewModel extends ViewModel {
     private void initApiService() {
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(BASE_API_URL)
+                .client(NetworkModule.getClient())
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
 
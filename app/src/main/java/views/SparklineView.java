@@ -0,0 +1,220 @@
+package views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Shader;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Lightweight sparkline for list rows, drawn straight from a float array.
+ *
+ * The line is kept as a {@link Path} in data coordinates (sample index, price) and mapped to the
+ * view with a {@link Matrix} at draw time, so a resize or a new price range costs nothing and an
+ * appended point is a single {@code lineTo}. The path is only rebuilt when the points are
+ * replaced, the last point moves, or enough old points have scrolled out of the window. All
+ * buffers are reused across rebinds; nothing is allocated per frame.
+ */
+public class SparklineView extends View {
+
+    private static final int UP_COLOR = Color.GREEN;
+    private static final int DOWN_COLOR = Color.RED;
+    // Matches the 50% -> 0% alpha of the chart_fill_* drawables
+    private static final int FILL_ALPHA = 0x80;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path dataPath = new Path();
+    private final Path linePath = new Path();
+    private final Path fillPath = new Path();
+    private final Matrix matrix = new Matrix();
+
+    private float[] values = new float[0];
+    private int count;
+    // Maximum number of points shown; appending beyond it drops the oldest
+    private int capacity;
+    // Sample index of values[0] and of the first point in dataPath
+    private long firstIndex;
+    private long pathStartIndex;
+    private float min;
+    private float max;
+    private boolean pathDirty = true;
+    private boolean fillShaderDirty = true;
+    private int shaderColor;
+
+    public SparklineView(Context context) {
+        this(context, null);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1.5f,
+                getResources().getDisplayMetrics()));
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        fillPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Replaces all points. The array is copied; identical data (e.g. a rebind of the same row)
+     * keeps the cached path.
+     */
+    public void setPoints(@Nullable float[] points) {
+        int length = points != null ? points.length : 0;
+        if (length == count && rangeEquals(points, length)) return;
+
+        if (values.length < length) values = new float[length];
+        if (length > 0) System.arraycopy(points, 0, values, 0, length);
+        count = length;
+        capacity = length;
+        firstIndex = 0;
+        recomputeRange();
+        pathDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Adds a live point at the end. Once the window is full the oldest point scrolls out.
+     */
+    public void appendPoint(float value) {
+        if (capacity == 0) capacity = 1;
+        if (count == capacity) {
+            float dropped = values[0];
+            System.arraycopy(values, 1, values, 0, count - 1);
+            count--;
+            firstIndex++;
+            if (dropped <= min || dropped >= max) recomputeRange();
+        }
+        if (values.length <= count) {
+            float[] grown = new float[Math.max(capacity, count + 1)];
+            System.arraycopy(values, 0, grown, 0, count);
+            values = grown;
+        }
+        values[count++] = value;
+        extendRange(value);
+
+        // Points scrolled out stay in the path but off-screen, until they make up a full window
+        if (!pathDirty && count > 1 && firstIndex - pathStartIndex < capacity) {
+            dataPath.lineTo(firstIndex + count - 1, value);
+        } else {
+            pathDirty = true;
+        }
+        invalidate();
+    }
+
+    /**
+     * Moves the last point, e.g. to follow the live price between samples.
+     */
+    public void setLastPoint(float value) {
+        if (count == 0) {
+            appendPoint(value);
+            return;
+        }
+        float previous = values[count - 1];
+        if (previous == value) return;
+        values[count - 1] = value;
+        if (previous <= min || previous >= max) {
+            recomputeRange();
+        } else {
+            extendRange(value);
+        }
+        pathDirty = true;
+        invalidate();
+    }
+
+    public void clear() {
+        setPoints(null);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        fillShaderDirty = true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (count < 2) return;
+
+        if (pathDirty) rebuildPath();
+        updatePaints();
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop() + linePaint.getStrokeWidth();
+        float width = getWidth() - getPaddingRight() - left;
+        float bottom = getHeight() - getPaddingBottom() - linePaint.getStrokeWidth();
+        float range = max - min;
+
+        float scaleX = width / (count - 1);
+        float scaleY = range > 0 ? (bottom - top) / range : 0;
+        matrix.setScale(scaleX, -scaleY);
+        matrix.postTranslate(left - firstIndex * scaleX, range > 0 ? bottom + min * scaleY : (top + bottom) / 2);
+        dataPath.transform(matrix, linePath);
+
+        fillPath.set(linePath);
+        fillPath.lineTo(left + width, getHeight());
+        fillPath.lineTo(left - (firstIndex - pathStartIndex) * scaleX, getHeight());
+        fillPath.close();
+
+        int save = canvas.save();
+        canvas.clipRect(left, 0, left + width, getHeight());
+        canvas.drawPath(fillPath, fillPaint);
+        canvas.drawPath(linePath, linePaint);
+        canvas.restoreToCount(save);
+    }
+
+    private void rebuildPath() {
+        dataPath.rewind();
+        pathStartIndex = firstIndex;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                dataPath.moveTo(firstIndex, values[0]);
+            } else {
+                dataPath.lineTo(firstIndex + i, values[i]);
+            }
+        }
+        pathDirty = false;
+    }
+
+    private void updatePaints() {
+        int color = values[count - 1] < values[0] ? DOWN_COLOR : UP_COLOR;
+        linePaint.setColor(color);
+        if (!fillShaderDirty && color == shaderColor) return;
+
+        int start = (color & 0x00FFFFFF) | (FILL_ALPHA << 24);
+        fillPaint.setShader(new LinearGradient(0, getPaddingTop(), 0, getHeight() - getPaddingBottom(),
+                start, color & 0x00FFFFFF, Shader.TileMode.CLAMP));
+        shaderColor = color;
+        fillShaderDirty = false;
+    }
+
+    private void recomputeRange() {
+        min = Float.POSITIVE_INFINITY;
+        max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            extendRange(values[i]);
+        }
+    }
+
+    private void extendRange(float value) {
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    private boolean rangeEquals(@Nullable float[] points, int length) {
+        for (int i = 0; i < length; i++) {
+            if (Float.compare(values[i], points[i]) != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+package backend;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import models.WatchlistEntry;
+
+import static org.junit.Assert.*;
+
+public class WatchlistDiffTest {
+
+    private static final String USER = "user";
+
+    private static WatchlistEntry entry(String symbol, long addedAt) {
+        return new WatchlistEntry(USER, symbol, symbol.replace("USDT", ""), "USDT", addedAt);
+    }
+
+    private static List<WatchlistEntry> server(String... symbols) {
+        List<WatchlistEntry> entries = new ArrayList<>();
+        for (String symbol : symbols) entries.add(entry(symbol, 0));
+        return entries;
+    }
+
+    private static List<String> symbols(List<WatchlistEntry> entries) {
+        List<String> symbols = new ArrayList<>();
+        for (WatchlistEntry entry : entries) symbols.add(entry.symbol);
+        return symbols;
+    }
+
+    @Test
+    public void sameListInSameOrder_writesNothing() {
+        List<WatchlistEntry> local = Arrays.asList(entry("BTCUSDT", 0), entry("ETHUSDT", 1));
+        WatchlistDiff diff = WatchlistDiff.compute(local, Collections.emptyList(), server("BTCUSDT", "ETHUSDT"));
+        assertTrue(diff.upserts.isEmpty());
+        assertTrue(diff.removed.isEmpty());
+        assertTrue(diff.changed.isEmpty());
+    }
+
+    @Test
+    public void serverAddsAndRemovals_areWrittenAndReported() {
+        List<WatchlistEntry> local = Arrays.asList(entry("BTCUSDT", 0), entry("XRPUSDT", 1));
+        WatchlistDiff diff = WatchlistDiff.compute(local, Collections.emptyList(), server("BTCUSDT", "SOLUSDT"));
+
+        assertEquals(Collections.singletonList("SOLUSDT"), symbols(diff.upserts));
+        assertEquals(1, diff.upserts.get(0).addedAt);
+        assertEquals(Collections.singletonList("XRPUSDT"), diff.removed);
+        assertEquals(Arrays.asList("SOLUSDT", "XRPUSDT"), diff.changed);
+    }
+
+    @Test
+    public void reorderedEntries_areRewrittenWithoutBeingReportedAsChanges() {
+        List<WatchlistEntry> local = Arrays.asList(entry("BTCUSDT", 0), entry("ETHUSDT", 1));
+        WatchlistDiff diff = WatchlistDiff.compute(local, Collections.emptyList(), server("ETHUSDT", "BTCUSDT"));
+
+        assertEquals(Arrays.asList("ETHUSDT", "BTCUSDT"), symbols(diff.upserts));
+        assertEquals(0, diff.upserts.get(0).addedAt);
+        assertEquals(1, diff.upserts.get(1).addedAt);
+        assertTrue(diff.removed.isEmpty());
+        assertTrue(diff.changed.isEmpty());
+    }
+
+    @Test
+    public void symbolsWithQueuedChanges_keepTheirLocalState() {
+        // BNB was added locally and SOL removed locally; the backend hasn't seen either yet
+        List<WatchlistEntry> local = Arrays.asList(entry("BTCUSDT", 0), entry("BNBUSDT", 5));
+        WatchlistDiff diff = WatchlistDiff.compute(local, Arrays.asList("BNBUSDT", "SOLUSDT"),
+                server("BTCUSDT", "SOLUSDT"));
+
+        assertTrue(diff.upserts.isEmpty());
+        assertTrue(diff.removed.isEmpty());
+        assertTrue(diff.changed.isEmpty());
+    }
+
+    @Test
+    public void serverEntries_areNotModified() {
+        List<WatchlistEntry> serverEntries = server("BTCUSDT", "ETHUSDT");
+        WatchlistDiff.compute(Collections.emptyList(), Collections.emptyList(), serverEntries);
+        assertEquals(0, serverEntries.get(1).addedAt);
+    }
+
+    @Test
+    public void emptyServerList_removesEverythingNotPending() {
+        List<WatchlistEntry> local = Arrays.asList(entry("BTCUSDT", 0), entry("ETHUSDT", 1));
+        WatchlistDiff diff = WatchlistDiff.compute(local, Collections.singletonList("ETHUSDT"), server());
+
+        assertTrue(diff.upserts.isEmpty());
+        assertEquals(Collections.singletonList("BTCUSDT"), diff.removed);
+        assertEquals(Collections.singletonList("BTCUSDT"), diff.changed);
+    }
+}
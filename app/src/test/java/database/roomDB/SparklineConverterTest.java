@@ -0,0 +1,89 @@
+package database.roomDB;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through {@link SparklineConverter}. Points are compared by their raw bits, since
+ * the encoding promises to keep them exactly, NaN payloads and negative zero included.
+ */
+public class SparklineConverterTest {
+
+    private static void assertRoundTrip(float[] points) {
+        float[] decoded = SparklineConverter.toPoints(SparklineConverter.fromPoints(points));
+        assertNotNull(decoded);
+        assertEquals(points.length, decoded.length);
+        for (int i = 0; i < points.length; i++) {
+            assertEquals("point " + i, Float.floatToRawIntBits(points[i]), Float.floatToRawIntBits(decoded[i]));
+        }
+    }
+
+    @Test
+    public void null_staysNull() {
+        assertNull(SparklineConverter.fromPoints(null));
+        assertNull(SparklineConverter.toPoints(null));
+    }
+
+    @Test
+    public void emptyArray_roundTrips() {
+        assertRoundTrip(new float[0]);
+    }
+
+    @Test
+    public void emptyOrUnknownBlob_isNoSparkline() {
+        assertNull(SparklineConverter.toPoints(new byte[0]));
+        assertNull(SparklineConverter.toPoints(new byte[]{99, 1, 0}));
+    }
+
+    @Test
+    public void truncatedOrMalformedBlob_isNoSparkline() {
+        byte[] blob = SparklineConverter.fromPoints(new float[]{64123.5f, 64120.25f, 64200f});
+        for (int length = 1; length < blob.length; length++) {
+            assertNull(SparklineConverter.toPoints(Arrays.copyOf(blob, length)));
+        }
+        // A count far beyond the bytes that follow must not be allocated
+        assertNull(SparklineConverter.toPoints(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, 0}));
+        // A varint that never ends
+        assertNull(SparklineConverter.toPoints(new byte[]{1, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, (byte) 0x80, 0}));
+    }
+
+    @Test
+    public void prices_roundTrip() {
+        assertRoundTrip(new float[]{64123.5f, 64120.25f, 64200f, 64187.75f, 63990.1f});
+    }
+
+    @Test
+    public void negativeAndSignFlippingValues_roundTrip() {
+        assertRoundTrip(new float[]{-1.5f, -1.25f, 0.75f, -0.0f, 0f, 3.2f, -3.2f, -1e-30f, 1e-30f});
+    }
+
+    @Test
+    public void nan_roundTripsBitForBit() {
+        float quietNaN = Float.NaN;
+        float payloadNaN = Float.intBitsToFloat(0x7fc12345);
+        assertRoundTrip(new float[]{1f, quietNaN, 2f, payloadNaN, Float.intBitsToFloat(0xffc00001)});
+    }
+
+    @Test
+    public void largeDeltas_roundTrip() {
+        assertRoundTrip(new float[]{
+                Float.MAX_VALUE, -Float.MAX_VALUE, Float.MIN_VALUE, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, 0f, -Float.MIN_VALUE, Float.MAX_VALUE
+        });
+    }
+
+    @Test
+    public void neighbouringPrices_takeFewerBytesThanFloats() {
+        float[] points = new float[200];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = 100f + (i % 7) * 0.01f;
+        }
+        byte[] blob = SparklineConverter.fromPoints(points);
+        assertTrue(blob.length < points.length * 4);
+        assertRoundTrip(points);
+    }
+}
@@ -0,0 +1,127 @@
+package market.symbol.repo
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CandleSeriesTest {
+
+    private fun bar(time: Long, close: Double = time.toDouble()) = Candle(time, 1.0, close + 1, 0.5, close, 10.0)
+
+    private fun bars(from: Long, to: Long) = (from..to).map { bar(it * STEP) }
+
+    private fun CandleSeries.times() = (0 until size).map { time(it) }
+
+    @Test
+    fun prependAndAppend_keepOrderAcrossCapacityGrowth() {
+        val series = CandleSeries(initialCapacity = 2)
+        series.setAll(bars(1000, 1009))
+
+        // Pages of history in front, live bars at the back, each forcing the columns to grow
+        for (page in 9 downTo 0) {
+            assertEquals(100, series.prependAll(bars(page * 100L, page * 100L + 99)))
+        }
+        for (time in 1010L until 3000L) {
+            series.append(bar(time * STEP))
+        }
+
+        assertEquals(3000, series.size)
+        assertEquals((0L until 3000L).map { it * STEP }, series.times())
+        assertEquals(0L, series.firstTime())
+        assertEquals(2999 * STEP, series.lastTime())
+        assertEquals(bar(1234 * STEP), series[1234])
+    }
+
+    @Test
+    fun appendAll_skipsBarsNotNewerThanTheLast() {
+        val series = CandleSeries()
+        series.setAll(bars(0, 9))
+
+        assertEquals(5, series.appendAll(bars(5, 14)))
+        assertEquals(0, series.appendAll(bars(10, 14)))
+        // A page overlapping the last bar leaves it alone; only replaceLast rewrites it
+        assertEquals(1, series.appendAll(listOf(bar(14 * STEP, close = 99.0), bar(15 * STEP))))
+        assertEquals(bar(14 * STEP), series[14])
+        assertEquals((0L..15L).map { it * STEP }, series.times())
+    }
+
+    @Test
+    fun prependAll_skipsBarsNotOlderThanTheFirst() {
+        val series = CandleSeries()
+        series.setAll(bars(10, 19))
+
+        assertEquals(5, series.prependAll(bars(5, 12)))
+        assertEquals(0, series.prependAll(bars(5, 9)))
+        assertEquals((5L..19L).map { it * STEP }, series.times())
+    }
+
+    @Test
+    fun duplicateAndUnsortedInput_isSortedAndDeduplicated() {
+        val series = CandleSeries()
+        series.setAll(listOf(bar(3 * STEP), bar(1 * STEP), bar(2 * STEP), bar(2 * STEP)))
+        assertEquals(listOf(STEP, 2 * STEP, 3 * STEP), series.times())
+
+        assertEquals(2, series.appendAll(listOf(bar(5 * STEP), bar(4 * STEP), bar(5 * STEP))))
+        assertEquals(1, series.prependAll(listOf(bar(0), bar(0))))
+        assertEquals((0L..5L).map { it * STEP }, series.times())
+    }
+
+    @Test
+    fun indexOfTime_isRelativeToTheFirstBar() {
+        val series = CandleSeries()
+        series.setAll(bars(100, 199))
+        series.prependAll(bars(50, 99))
+
+        assertEquals(0, series.indexOfTime(50 * STEP))
+        assertEquals(149, series.indexOfTime(199 * STEP))
+        assertEquals(60, series.indexOfTime(110 * STEP))
+        // Between two bars: insertion point after the bar at index 60
+        assertEquals(-(61 + 1), series.indexOfTime(110 * STEP + 1))
+        assertEquals(-(0 + 1), series.indexOfTime(0))
+        assertEquals(-(150 + 1), series.indexOfTime(500 * STEP))
+    }
+
+    @Test
+    fun snapshot_isStableWhileTheSeriesKeepsChanging() {
+        val series = CandleSeries(initialCapacity = 4)
+        series.setAll(bars(10, 19))
+        val snapshot = series.snapshot()
+        val expected = bars(10, 19)
+
+        series.append(bar(20 * STEP))
+        series.prependAll(bars(0, 9))
+        for (time in 21L until 600L) series.append(bar(time * STEP))
+        assertEquals(expected, snapshot.toList())
+
+        series.setAll(bars(1000, 1001))
+        series.clear()
+        assertEquals(expected, snapshot.toList())
+        assertEquals(10 * STEP, snapshot.timeAt(0))
+        assertEquals(19.0 * STEP, snapshot.closeAt(9), 0.0)
+    }
+
+    @Test
+    fun snapshot_seesTheFormingBarReplaced() {
+        val series = CandleSeries()
+        series.setAll(bars(0, 9))
+        val snapshot = series.snapshot()
+
+        series.replaceLast(bar(9 * STEP, close = 42.0))
+        assertEquals(42.0, snapshot.closeAt(9), 0.0)
+        assertEquals(bar(9 * STEP, close = 42.0), snapshot[9])
+    }
+
+    @Test
+    fun snapshot_usesIdentityEquality() {
+        val series = CandleSeries()
+        series.setAll(bars(0, 9))
+        val first = series.snapshot()
+        val second = series.snapshot()
+        assertTrue(first == first)
+        assertTrue(first != second)
+    }
+
+    private companion object {
+        const val STEP = 60L
+    }
+}
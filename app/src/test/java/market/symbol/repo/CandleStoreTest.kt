@@ -0,0 +1,136 @@
+package market.symbol.repo
+
+import backend.CandleDao
+import models.CachedCandle
+import models.CandleHistoryStart
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+/**
+ * Local unit tests for [CandleStore.findGaps] and the history start bookkeeping. Only the
+ * history start table is backed by the fake DAO; [findGaps] works on the bars it is given.
+ */
+class CandleStoreTest {
+
+    private val historyStarts = HashMap<String, CandleHistoryStart>()
+
+    private val store = CandleStore(object : CandleDao {
+        override fun upsertAll(candles: List<CachedCandle>) = throw UnsupportedOperationException()
+        override fun upsert(candle: CachedCandle) = throw UnsupportedOperationException()
+        override fun getRange(symbol: String, interval: String, fromTime: Long, toTime: Long): List<CachedCandle> =
+            throw UnsupportedOperationException()
+        override fun getFirstOpenTime(symbol: String, interval: String): Long? = throw UnsupportedOperationException()
+        override fun getHistoryStart(symbol: String, interval: String): CandleHistoryStart? =
+            historyStarts["$symbol/$interval"]
+        override fun upsertHistoryStart(start: CandleHistoryStart) {
+            historyStarts["${start.symbol}/${start.interval}"] = start
+        }
+    })
+
+    private fun bars(vararg times: Long) = times.map { Candle(it, 1.0, 1.0, 1.0, 1.0, 1.0) }
+
+    @Test
+    fun emptyStore_wholeRangeIsMissing() {
+        val gaps = store.findGaps(emptyList(), 0, 600, STEP, nowSeconds = NOW)
+        assertEquals(listOf(CandleStore.Gap(0, 600)), gaps)
+    }
+
+    @Test
+    fun emptyStore_rangeBeforeHistoryStartIsNotMissing() {
+        val gaps = store.findGaps(emptyList(), 0, 600, STEP, historyStartSeconds = 300, nowSeconds = NOW)
+        assertEquals(listOf(CandleStore.Gap(300, 600)), gaps)
+    }
+
+    @Test
+    fun rangeEntirelyBeforeHistoryStart_hasNoGaps() {
+        val gaps = store.findGaps(emptyList(), 0, 600, STEP, historyStartSeconds = 700, nowSeconds = NOW)
+        assertTrue(gaps.isEmpty())
+    }
+
+    @Test
+    fun leadingGap_isReportedUntilHistoryStartIsKnown() {
+        val stored = bars(120, 180, 240, 300, 360, 420, 480, 540, 600)
+        assertEquals(listOf(CandleStore.Gap(0, 119)), store.findGaps(stored, 0, 600, STEP, nowSeconds = NOW))
+        assertTrue(store.findGaps(stored, 0, 600, STEP, historyStartSeconds = 120, nowSeconds = NOW).isEmpty())
+    }
+
+    @Test
+    fun holeBetweenBars_isReported() {
+        val gaps = store.findGaps(bars(0, 60, 120, 300, 360), 0, 360, STEP, nowSeconds = NOW)
+        assertEquals(listOf(CandleStore.Gap(121, 299)), gaps)
+    }
+
+    @Test
+    fun irregularSpacingWithinSlack_isNotAHole() {
+        val gaps = store.findGaps(bars(0, 60, 150, 210), 0, 210, STEP, nowSeconds = NOW)
+        assertTrue(gaps.isEmpty())
+    }
+
+    @Test
+    fun formingBar_isAlwaysRefetched() {
+        val gaps = store.findGaps(bars(0, 60, 120, 180, 240, 300, 360), 0, 360, STEP, nowSeconds = 400)
+        assertEquals(listOf(CandleStore.Gap(360, 360)), gaps)
+    }
+
+    @Test
+    fun gapsLongerThanOnePage_areSplitIntoPages() {
+        val pageSpan = STEP * HistoryRangePlanner.MAX_PAGE_SIZE
+        val gaps = store.findGaps(emptyList(), 0, pageSpan * 2 + 600, STEP, nowSeconds = NOW)
+
+        assertEquals(3, gaps.size)
+        assertEquals(0L, gaps.first().from)
+        assertEquals(pageSpan * 2 + 600, gaps.last().to)
+        for (i in 1 until gaps.size) assertEquals(gaps[i - 1].to + 1, gaps[i].from)
+        gaps.forEach { assertTrue(it.to - it.from < pageSpan) }
+    }
+
+    @Test
+    fun manyHoles_collapsedAcrossPages_areStillSplit() {
+        val lastBar = STEP * 1500
+        val stored = bars(0, 180, 360, 540, lastBar)
+        val gaps = store.findGaps(stored, 0, lastBar, STEP, nowSeconds = lastBar * 10)
+
+        val pageStart = lastBar - STEP * HistoryRangePlanner.MAX_PAGE_SIZE
+        assertEquals(listOf(CandleStore.Gap(1, pageStart - 1), CandleStore.Gap(pageStart, lastBar - 1)), gaps)
+    }
+
+    @Test
+    fun emptyWindowOlderThanStoredBars_marksHistoryStart() {
+        assertEquals(601L, store.historyStartAfter(emptyList(), emptyList(), 600, earliestStoredSeconds = 6000))
+    }
+
+    @Test
+    fun emptyStore_neverMarksHistoryStart() {
+        assertNull(store.historyStartAfter(emptyList(), emptyList(), 600, earliestStoredSeconds = null))
+    }
+
+    @Test
+    fun failedOrNonEmptyFetch_neverMarksHistoryStart() {
+        assertNull(store.historyStartAfter(emptyList(), null, 600, earliestStoredSeconds = 6000))
+        // A short page starting late may be a hole on the backend, not the listing date
+        assertNull(store.historyStartAfter(emptyList(), bars(540), 600, earliestStoredSeconds = 6000))
+    }
+
+    @Test
+    fun windowWithStoredBarsOrNotOlderThanThem_neverMarksHistoryStart() {
+        assertNull(store.historyStartAfter(bars(300), emptyList(), 600, earliestStoredSeconds = 300))
+        // An empty stretch after the earliest stored bar is a hole in the data
+        assertNull(store.historyStartAfter(emptyList(), emptyList(), 600, earliestStoredSeconds = 0))
+    }
+
+    @Test
+    fun historyStart_expires() {
+        store.markNoHistoryBefore("BTC", "1m", 601, nowMillis = 0)
+        assertEquals(601L, store.historyStart("BTC", "1m", nowMillis = TimeUnit.DAYS.toMillis(7) - 1))
+        assertNull(store.historyStart("BTC", "1m", nowMillis = TimeUnit.DAYS.toMillis(7)))
+        assertNull(store.historyStart("ETH", "1m", nowMillis = 0))
+    }
+
+    private companion object {
+        const val STEP = 60L
+        const val NOW = 1_000_000L
+    }
+}
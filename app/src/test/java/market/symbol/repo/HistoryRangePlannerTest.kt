@@ -0,0 +1,49 @@
+package market.symbol.repo
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class HistoryRangePlannerTest {
+
+    @Test
+    fun invertedRange_hasNoWindows() {
+        assertTrue(HistoryRangePlanner.plan(100, 99, 60).isEmpty())
+    }
+
+    @Test
+    fun rangeOfOnePage_isOneWindow() {
+        val windows = HistoryRangePlanner.plan(0, 5_999, 60, pageSize = 100)
+        assertEquals(listOf(CandleStore.Gap(0, 5_999)), windows)
+    }
+
+    @Test
+    fun longerRange_isSplitNewestFirst() {
+        val windows = HistoryRangePlanner.plan(0, 6_000, 60, pageSize = 100)
+        assertEquals(listOf(CandleStore.Gap(1, 6_000), CandleStore.Gap(0, 0)), windows)
+    }
+
+    @Test
+    fun windows_coverTheRangeContiguouslyWithinThePageSize() {
+        val from = 1_000L
+        val to = 1_000_000L
+        val step = 300L
+        val pageSize = 250
+        val windows = HistoryRangePlanner.plan(from, to, step, pageSize)
+
+        assertEquals(to, windows.first().to)
+        assertEquals(from, windows.last().from)
+        for (i in windows.indices) {
+            val window = windows[i]
+            assertTrue(window.from <= window.to)
+            assertTrue(window.to - window.from + 1 <= step * pageSize)
+            if (i > 0) assertEquals(windows[i - 1].from - 1, window.to)
+        }
+    }
+
+    @Test
+    fun zeroStep_isTreatedAsOneSecond() {
+        val windows = HistoryRangePlanner.plan(0, 9, 0, pageSize = 5)
+        assertEquals(listOf(CandleStore.Gap(5, 9), CandleStore.Gap(0, 4)), windows)
+    }
+}
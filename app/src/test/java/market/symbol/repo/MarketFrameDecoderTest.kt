@@ -0,0 +1,88 @@
+package market.symbol.repo
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class MarketFrameDecoderTest {
+
+    private val decoder = MarketFrameDecoder()
+
+    private fun tick(price: Double, change: Double) = MarketUpdate.Tick(TickData(price, change))
+
+    private fun candle(time: Long, open: Double, high: Double, low: Double, close: Double, volume: Double) =
+        MarketUpdate.CandleUpdate(Candle(time, open, high, low, close, volume))
+
+    @Test
+    fun priceFrame_isATick() {
+        assertEquals(tick(64123.5, -1.25), decoder.decode("""{"type":"price","price":64123.5,"change":-1.25}"""))
+    }
+
+    @Test
+    fun untypedPriceFrame_isATick() {
+        assertEquals(tick(1.5, 0.2), decoder.decode("""{"price":1.5,"change":0.2}"""))
+    }
+
+    @Test
+    fun legacyTick_isATick() {
+        assertEquals(tick(2.5, -0.5), decoder.decode("""{"p":2.5,"c":-0.5}"""))
+    }
+
+    @Test
+    fun candleFrame_readsNestedOhlcvWithOpenTimeInSeconds() {
+        val frame = """{"type":"candle","ohlcv":{"open_time":1700000000000,"open":1.0,"high":2.0,""" +
+            """"low":0.5,"close":1.5,"volume":10.0}}"""
+        assertEquals(candle(1_700_000_000, 1.0, 2.0, 0.5, 1.5, 10.0), decoder.decode(frame))
+    }
+
+    @Test
+    fun untypedOhlcvFrame_isACandle() {
+        val frame = """{"ohlcv":{"open_time":1700000000000,"open":1,"high":2,"low":1,"close":2,"volume":3}}"""
+        assertEquals(candle(1_700_000_000, 1.0, 2.0, 1.0, 2.0, 3.0), decoder.decode(frame))
+    }
+
+    @Test
+    fun legacyFlatCandle_isACandle() {
+        val frame = """{"open_time":1700000060000,"open":1.0,"high":3.0,"low":0.5,"close":2.0,"volume":7.5}"""
+        assertEquals(candle(1_700_000_060, 1.0, 3.0, 0.5, 2.0, 7.5), decoder.decode(frame))
+    }
+
+    @Test
+    fun unknownFields_areSkipped() {
+        val frame = """{"symbol":"BTCUSDT","meta":{"tags":[1,"a",{"b":null}]},"type":"price",""" +
+            """"price":3.0,"ts":1700000000000,"ohlcv_extra":{"open":9}}"""
+        assertEquals(tick(3.0, 0.0), decoder.decode(frame))
+    }
+
+    @Test
+    fun nullValues_readAsZero() {
+        assertEquals(tick(0.0, 0.0), decoder.decode("""{"type":"price","price":null,"change":null}"""))
+    }
+
+    @Test
+    fun candleFrameWithoutOhlcv_isDropped() {
+        assertNull(decoder.decode("""{"type":"candle"}"""))
+        assertNull(decoder.decode("""{"type":"candle","ohlcv":null}"""))
+    }
+
+    @Test
+    fun unknownFormat_isDropped() {
+        assertNull(decoder.decode("""{"symbol":"BTCUSDT","status":"ok"}"""))
+    }
+
+    @Test
+    fun malformedInput_isDropped() {
+        assertNull(decoder.decode(""))
+        assertNull(decoder.decode("not json"))
+        assertNull(decoder.decode("[1,2,3]"))
+        assertNull(decoder.decode("""{"type":"price","price":"""))
+        assertNull(decoder.decode("""{"type":"price","price":"abc"}"""))
+    }
+
+    @Test
+    fun decoderReuse_doesNotLeakFieldsBetweenFrames() {
+        decoder.decode("""{"open_time":1700000060000,"open":1.0,"high":3.0,"low":0.5,"close":2.0,"volume":7.5}""")
+        assertEquals(tick(5.0, 0.0), decoder.decode("""{"type":"price","price":5.0}"""))
+        assertNull(decoder.decode("""{"type":"candle"}"""))
+    }
+}
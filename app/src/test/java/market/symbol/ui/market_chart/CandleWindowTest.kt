@@ -0,0 +1,158 @@
+package market.symbol.ui.market_chart
+
+import com.tradingview.lightweightcharts.api.chart.models.color.IntColor
+import com.tradingview.lightweightcharts.api.series.models.CandlestickData
+import com.tradingview.lightweightcharts.api.series.models.HistogramData
+import com.tradingview.lightweightcharts.api.series.models.Time
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.IdentityHashMap
+
+class CandleWindowTest {
+
+    private val candles = List(BAR_COUNT) { i ->
+        val base = 100f + (i % 50) * 0.5f
+        val high = when (i) {
+            SPIKE_INDEX -> SPIKE_HIGH
+            else -> base + 1f
+        }
+        val low = when (i) {
+            DIP_INDEX -> DIP_LOW
+            else -> base - 1f
+        }
+        CandlestickData(Time.Utc(timeOf(i)), base, high, low, base + if (i % 3 == 0) -0.25f else 0.25f)
+    }
+    private val volumes = List(BAR_COUNT) { i -> HistogramData(Time.Utc(timeOf(i)), (i % 10 + 1).toFloat(), UP) }
+
+    private fun planFor(visibleFromIndex: Int, visibleToIndex: Int) =
+        CandleWindow.plan(timeOf(0), timeOf(BAR_COUNT - 1), BAR, timeOf(visibleFromIndex), timeOf(visibleToIndex))
+
+    @Test
+    fun viewportAtTheEnd_isFullDetailAndFollowsTheEnd() {
+        val window = planFor(BAR_COUNT - 100, BAR_COUNT - 1)
+        assertEquals(1L, window.innerFactor)
+        assertTrue(window.followsEnd)
+        assertTrue(window.outerFactor > 1)
+        assertTrue(window.covers(timeOf(BAR_COUNT - 100), timeOf(BAR_COUNT - 1)))
+        assertFalse(window.covers(timeOf(1_000), timeOf(1_100)))
+    }
+
+    @Test
+    fun downsampledCandles_areStrictlyIncreasingAndKeepExtremes() {
+        for (window in listOf(planFor(BAR_COUNT - 100, BAR_COUNT - 1), planFor(0, BAR_COUNT - 1), planFor(40_000, 40_300))) {
+            val out = window.downsampleCandles(candles)
+
+            assertTrue(out.size < 2_000)
+            for (i in 1 until out.size) {
+                assertTrue(CandleWindow.seconds(out[i].time) > CandleWindow.seconds(out[i - 1].time))
+            }
+            assertEquals(SPIKE_HIGH, out.maxOf { it.high }, 0f)
+            assertEquals(DIP_LOW, out.minOf { it.low }, 0f)
+            assertEquals(candles.first().open, out.first().open, 0f)
+            assertEquals(candles.last().close, out.last().close, 0f)
+        }
+    }
+
+    @Test
+    fun barsInTheViewport_arePassedThrough() {
+        val window = planFor(BAR_COUNT - 100, BAR_COUNT - 1)
+        val out = window.downsampleCandles(candles)
+        for (i in 1..100) {
+            assertSame(candles[BAR_COUNT - i], out[out.size - i])
+        }
+    }
+
+    @Test
+    fun mergedBar_keepsFirstOpenLastCloseAndRange() {
+        val window = planFor(0, BAR_COUNT - 1)
+        val out = window.downsampleCandles(candles)
+        val first = out.first()
+        val mergedCount = candles.indexOfFirst { CandleWindow.seconds(it.time) >= CandleWindow.seconds(out[1].time) }
+        val merged = candles.subList(0, mergedCount)
+        assertTrue(mergedCount > 1)
+        assertEquals(merged.first().open, first.open, 0f)
+        assertEquals(merged.last().close, first.close, 0f)
+        assertEquals(merged.maxOf { it.high }, first.high, 0f)
+        assertEquals(merged.minOf { it.low }, first.low, 0f)
+    }
+
+    @Test
+    fun downsampledVolumes_lineUpWithCandlesAndKeepTheTotal() {
+        val window = planFor(40_000, 40_300)
+        val outCandles = window.downsampleCandles(candles)
+        val outVolumes = window.downsampleVolumes(volumes, candles, UP, DOWN)
+
+        assertEquals(outCandles.size, outVolumes.size)
+        for (i in outCandles.indices) {
+            assertEquals(CandleWindow.seconds(outCandles[i].time), CandleWindow.seconds(outVolumes[i].time))
+        }
+        assertEquals(volumes.sumOf { it.value.toDouble() }, outVolumes.sumOf { it.value.toDouble() }, 1e-3)
+    }
+
+    @Test
+    fun mergedVolumeColor_followsTheMergedCandle() {
+        val window = planFor(40_000, 40_300)
+        // Volumes first: the colors must not depend on an earlier candle downsampling
+        val outVolumes = window.downsampleVolumes(volumes, candles, UP, DOWN)
+        val outCandles = window.downsampleCandles(candles)
+
+        val originals = Collections.newSetFromMap(IdentityHashMap<CandlestickData, Boolean>()).apply { addAll(candles) }
+        var merged = 0
+        for (i in outCandles.indices) {
+            val candle = outCandles[i]
+            if (candle in originals) continue
+            assertSame(if (candle.close >= candle.open) UP else DOWN, outVolumes[i].color)
+            merged++
+        }
+        assertTrue(merged > 0)
+    }
+
+    @Test
+    fun lastVolume_matchesTheLastDownsampledVolume() {
+        val window = planFor(0, BAR_COUNT - 1)
+        val last = window.downsampleVolumes(volumes, candles, UP, DOWN).last()
+        val live = window.lastVolume(volumes, candles, UP, DOWN)
+        assertEquals(last.value, live.value, 1e-3f)
+        assertSame(last.color, live.color)
+    }
+
+    @Test
+    fun sameLayout_ignoresTheHistoryBounds() {
+        val window = planFor(40_000, 40_300)
+        val withOlderChunk = CandleWindow.plan(timeOf(0) - 1_000 * BAR, timeOf(BAR_COUNT - 1), BAR,
+            timeOf(40_000), timeOf(40_300))
+        assertTrue(window.sameLayout(withOlderChunk))
+        assertFalse(window.sameLayout(planFor(10_000, 10_300)))
+        assertFalse(window.sameLayout(null))
+    }
+
+    @Test
+    fun lastCandle_matchesTheLastDownsampledBar() {
+        val window = planFor(0, BAR_COUNT - 1)
+        val last = window.downsampleCandles(candles).last()
+        val live = window.lastCandle(candles)
+        assertEquals(CandleWindow.seconds(last.time), CandleWindow.seconds(live.time))
+        assertEquals(last.open, live.open, 0f)
+        assertEquals(last.high, live.high, 0f)
+        assertEquals(last.low, live.low, 0f)
+        assertEquals(last.close, live.close, 0f)
+    }
+
+    private companion object {
+        const val BAR = 60L
+        const val START = 1_600_000_020L
+        const val BAR_COUNT = 100_000
+        const val SPIKE_INDEX = 12_345
+        const val DIP_INDEX = 67_890
+        const val SPIKE_HIGH = 1_000_000f
+        const val DIP_LOW = 0.001f
+        val UP = IntColor(0xFF26A69A.toInt())
+        val DOWN = IntColor(0xFFEF5350.toInt())
+
+        fun timeOf(index: Int): Long = START + index * BAR
+    }
+}
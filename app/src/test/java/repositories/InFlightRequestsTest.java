@@ -0,0 +1,263 @@
+package repositories;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link InFlightRequests}. Calls run on the test thread, but only when the
+ * test drains the executor, so requests can be made while a call is still in flight.
+ */
+public class InFlightRequestsTest {
+
+    private final QueuedExecutor executor = new QueuedExecutor();
+    private final InFlightRequests<String> requests = new InFlightRequests<>(executor);
+    private final List<FakeCall> calls = new ArrayList<>();
+
+    private Supplier<Call<String>> answering(@Nullable String body) {
+        return () -> {
+            FakeCall call = new FakeCall(body);
+            calls.add(call);
+            return call;
+        };
+    }
+
+    @Test
+    public void identicalRequests_shareOneCall() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        requests.request("btc", answering("BTCUSDT"), first);
+        requests.request("btc", answering("other"), second);
+
+        executor.drain();
+
+        assertEquals(1, calls.size());
+        assertEquals(1, calls.get(0).executions);
+        assertEquals(Collections.singletonList("BTCUSDT"), first.results);
+        assertEquals(Collections.singletonList("BTCUSDT"), second.results);
+    }
+
+    @Test
+    public void differentKeys_getTheirOwnCalls() {
+        RecordingListener btc = new RecordingListener();
+        RecordingListener eth = new RecordingListener();
+        requests.request("btc", answering("BTCUSDT"), btc);
+        requests.request("eth", answering("ETHUSDT"), eth);
+
+        executor.drain();
+
+        assertEquals(2, calls.size());
+        assertEquals(Collections.singletonList("BTCUSDT"), btc.results);
+        assertEquals(Collections.singletonList("ETHUSDT"), eth.results);
+    }
+
+    @Test
+    public void requestAfterCompletion_startsANewCall() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        requests.request("btc", answering("old"), first);
+        executor.drain();
+        requests.request("btc", answering("new"), second);
+        executor.drain();
+
+        assertEquals(2, calls.size());
+        assertEquals(Collections.singletonList("old"), first.results);
+        assertEquals(Collections.singletonList("new"), second.results);
+    }
+
+    @Test
+    public void failedCall_completesWithNull() {
+        RecordingListener listener = new RecordingListener();
+        requests.request("btc", () -> {
+            FakeCall call = new FakeCall(null);
+            call.errorCode = 500;
+            return call;
+        }, listener);
+
+        executor.drain();
+
+        assertEquals(Collections.singletonList(null), listener.results);
+        assertEquals(0, listener.cancellations);
+    }
+
+    @Test
+    public void cancelledRequest_notifiesOnCancelledInsteadOfOnComplete() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        requests.request("btc", answering("BTCUSDT"), first);
+        requests.request("btc", answering("BTCUSDT"), second);
+
+        requests.cancel("btc");
+        executor.drain();
+
+        assertTrue(calls.get(0).canceled);
+        assertTrue(first.results.isEmpty());
+        assertTrue(second.results.isEmpty());
+        assertEquals(1, first.cancellations);
+        assertEquals(1, second.cancellations);
+    }
+
+    @Test
+    public void requestArrivingAfterCancel_startsAFreshCall() {
+        RecordingListener cancelled = new RecordingListener();
+        RecordingListener joiner = new RecordingListener();
+        requests.request("btc", answering("stale"), cancelled);
+        requests.cancel("btc");
+        requests.request("btc", answering("fresh"), joiner);
+
+        executor.drain();
+
+        assertEquals(2, calls.size());
+        assertEquals(1, cancelled.cancellations);
+        assertTrue(cancelled.results.isEmpty());
+        assertEquals(Collections.singletonList("fresh"), joiner.results);
+        assertEquals(0, joiner.cancellations);
+    }
+
+    @Test
+    public void cancellingAnUnknownKey_isANoOp() {
+        requests.cancel("btc");
+        RecordingListener listener = new RecordingListener();
+        requests.request("btc", answering("BTCUSDT"), listener);
+        executor.drain();
+
+        assertEquals(Collections.singletonList("BTCUSDT"), listener.results);
+    }
+
+    private static final class RecordingListener implements InFlightRequests.Listener<String> {
+        final List<String> results = new ArrayList<>();
+        int cancellations;
+
+        @Override
+        public void onComplete(@Nullable String result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onCancelled() {
+            cancellations++;
+        }
+    }
+
+    /**
+     * Runs submitted tasks on the calling thread when {@link #drain} is called.
+     */
+    private static final class QueuedExecutor extends AbstractExecutorService {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>(tasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    /**
+     * A call that answers with a fixed body, or fails like OkHttp once cancelled.
+     */
+    private static final class FakeCall implements Call<String> {
+        @Nullable
+        private final String body;
+        int errorCode;
+        int executions;
+        boolean canceled;
+
+        FakeCall(@Nullable String body) {
+            this.body = body;
+        }
+
+        @Override
+        public Response<String> execute() throws IOException {
+            executions++;
+            if (canceled) throw new IOException("Canceled");
+            if (errorCode != 0) {
+                return Response.error(errorCode, ResponseBody.create(MediaType.get("text/plain"), ""));
+            }
+            return Response.success(body);
+        }
+
+        @Override
+        public void enqueue(Callback<String> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executions > 0;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<String> clone() {
+            return new FakeCall(body);
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
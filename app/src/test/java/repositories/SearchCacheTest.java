@@ -0,0 +1,105 @@
+package repositories;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import models.Symbol;
+
+import static org.junit.Assert.*;
+
+public class SearchCacheTest {
+
+    private static final long TTL_MS = 60_000;
+
+    private long now = 1_000;
+    private final SearchCache cache = new SearchCache(3, TTL_MS, () -> now);
+
+    private static Symbol symbol(String ticker, String asset) {
+        return new Symbol(ticker, asset, ticker, "USDT", 0, 0, 0, 0, 0, (float[]) null, false);
+    }
+
+    private static List<String> tickers(List<Symbol> symbols) {
+        List<String> tickers = new ArrayList<>();
+        for (Symbol symbol : symbols) tickers.add(symbol.getSymbol());
+        return tickers;
+    }
+
+    @Test
+    public void exactQuery_isServedIgnoringCaseAndWhitespace() {
+        cache.put("btc", 10, Arrays.asList(symbol("BTCUSDT", "Bitcoin")));
+        List<Symbol> results = cache.get("  BTC ", 10);
+        assertNotNull(results);
+        assertEquals(Arrays.asList("BTCUSDT"), tickers(results));
+    }
+
+    @Test
+    public void entry_expiresAfterTtl() {
+        cache.put("btc", 10, Arrays.asList(symbol("BTCUSDT", "Bitcoin")));
+        now += TTL_MS;
+        assertNotNull(cache.get("btc", 10));
+        now += 1;
+        assertNull(cache.get("btc", 10));
+    }
+
+    @Test
+    public void completePrefix_answersLongerQueryByFiltering() {
+        cache.put("bt", 10, Arrays.asList(
+                symbol("BTCUSDT", "Bitcoin"), symbol("BTTUSDT", "BitTorrent"), symbol("WBTCUSDT", "Wrapped Bitcoin")));
+        List<Symbol> results = cache.get("btc", 10);
+        assertNotNull(results);
+        assertEquals(Arrays.asList("BTCUSDT", "WBTCUSDT"), tickers(results));
+    }
+
+    @Test
+    public void entryDerivedFromPrefix_keepsEveryMatch() {
+        cache.put("b", 50, Arrays.asList(
+                symbol("BTCUSDT", "Bitcoin"), symbol("BTTUSDT", "BitTorrent"), symbol("BNBUSDT", "BNB")));
+        assertEquals(Arrays.asList("BTCUSDT"), tickers(cache.get("bt", 1)));
+
+        // The "bt" entry stored above must not be cut to the first caller's limit
+        List<Symbol> results = cache.get("bt", 50);
+        assertNotNull(results);
+        assertEquals(Arrays.asList("BTCUSDT", "BTTUSDT"), tickers(results));
+        assertEquals(Arrays.asList("BTTUSDT"), tickers(cache.get("btt", 50)));
+    }
+
+    @Test
+    public void truncatedPrefix_isNotUsed() {
+        // As many rows as were asked for: the server may have more that match the longer query
+        cache.put("b", 2, Arrays.asList(symbol("BTCUSDT", "Bitcoin"), symbol("BNBUSDT", "BNB")));
+        assertNull(cache.get("bnb", 2));
+    }
+
+    @Test
+    public void expiredPrefix_isNotUsed() {
+        cache.put("bt", 10, Arrays.asList(symbol("BTCUSDT", "Bitcoin")));
+        now += TTL_MS + 1;
+        assertNull(cache.get("btc", 10));
+    }
+
+    @Test
+    public void smallerLimit_isServedFromALargerEntry() {
+        cache.put("usdt", 3, Arrays.asList(
+                symbol("BTCUSDT", "Bitcoin"), symbol("ETHUSDT", "Ethereum"), symbol("BNBUSDT", "BNB")));
+        List<Symbol> results = cache.get("usdt", 2);
+        assertNotNull(results);
+        assertEquals(Arrays.asList("BTCUSDT", "ETHUSDT"), tickers(results));
+        // A truncated entry can't answer a larger limit
+        assertNull(cache.get("usdt", 5));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntry_isEvicted() {
+        cache.put("a", 10, Arrays.asList(symbol("AAVEUSDT", "Aave")));
+        cache.put("b", 10, Arrays.asList(symbol("BTCUSDT", "Bitcoin")));
+        cache.put("c", 10, Arrays.asList(symbol("CAKEUSDT", "PancakeSwap")));
+        assertNotNull(cache.get("a", 10));
+        cache.put("d", 10, Arrays.asList(symbol("DOGEUSDT", "Dogecoin")));
+
+        assertNotNull(cache.get("a", 10));
+        assertNull(cache.get("b", 10));
+    }
+}
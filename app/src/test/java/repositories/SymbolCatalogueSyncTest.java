@@ -0,0 +1,403 @@
+package repositories;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import backend.ApiService;
+import backend.SymbolDao;
+import models.CachedSymbol;
+import models.CachedSymbolInfo;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link SymbolCatalogueSync} against an in-memory symbols table and a
+ * backend that answers catalogue pages from a script.
+ */
+public class SymbolCatalogueSyncTest {
+
+    private static final Gson GSON = new Gson();
+
+    private final FakeSymbolDao dao = new FakeSymbolDao();
+    private final FakePreferences prefs = new FakePreferences();
+    private final Deque<JsonElement> pages = new ArrayDeque<>();
+    private final List<String> requestedSince = new ArrayList<>();
+
+    private final ApiService api = (ApiService) Proxy.newProxyInstance(
+            ApiService.class.getClassLoader(), new Class<?>[]{ApiService.class}, (proxy, method, args) -> {
+                if (!method.getName().equals("getSymbolCatalogue")) throw new UnsupportedOperationException();
+                requestedSince.add((String) args[0]);
+                return new FakeCall(pages.poll());
+            });
+
+    private final SymbolCatalogueSync sync = new SymbolCatalogueSync(api, dao, prefs);
+
+    @Test
+    public void fullSync_removesSymbolsMissingFromTheCatalogue() {
+        dao.seed("BTCUSDT", "LUNAUSDT");
+        page("{\"version\": \"v1\", \"has_more\": true, \"symbols\": [" + symbol("BTCUSDT") + "]}");
+        page("{\"version\": \"v1\", \"has_more\": false, \"symbols\": [" + symbol("ETHUSDT") + "]}");
+
+        assertTrue(sync.sync());
+
+        assertEquals(Arrays.asList("BTCUSDT", "ETHUSDT"), dao.tickers());
+        assertEquals("v1", prefs.getString("version", null));
+        assertEquals(Arrays.asList(null, null), requestedSince);
+    }
+
+    @Test
+    public void deltaSync_appliesChangesAndRemovals() {
+        dao.seed("BTCUSDT", "ETHUSDT", "XRPUSDT");
+        prefs.edit().putString("version", "v1").apply();
+        page("{\"version\": \"v2\", \"symbols\": [" + symbol("SOLUSDT") + "], \"removed\": [\"XRPUSDT\"]}");
+
+        assertTrue(sync.sync());
+
+        assertEquals(Arrays.asList("BTCUSDT", "ETHUSDT", "SOLUSDT"), dao.tickers());
+        assertEquals("v2", prefs.getString("version", null));
+        assertEquals(Arrays.asList("v1"), requestedSince);
+    }
+
+    @Test
+    public void resyncRequired_downloadsTheFullCatalogueAndRemovesTheRest() {
+        dao.seed("BTCUSDT", "LUNAUSDT");
+        prefs.edit().putString("version", "v1").apply();
+        page("{\"full_resync\": true}");
+        page("{\"version\": \"v9\", \"symbols\": [" + symbol("BTCUSDT") + "]}");
+
+        assertTrue(sync.sync());
+
+        assertEquals(Arrays.asList("BTCUSDT"), dao.tickers());
+        assertEquals("v9", prefs.getString("version", null));
+        assertEquals(Arrays.asList("v1", null), requestedSince);
+    }
+
+    @Test
+    public void bareList_isAFullSyncEveryRun() {
+        page("[" + symbol("BTCUSDT") + ", " + symbol("LUNAUSDT") + "]");
+        assertTrue(sync.sync());
+        assertEquals(Arrays.asList("BTCUSDT", "LUNAUSDT"), dao.tickers());
+
+        page("[" + symbol("BTCUSDT") + "]");
+        assertTrue(sync.sync());
+        assertEquals(Arrays.asList("BTCUSDT"), dao.tickers());
+        assertNull(prefs.getString("version", null));
+    }
+
+    @Test
+    public void interruptedFullSync_removesNothing() {
+        dao.seed("BTCUSDT", "LUNAUSDT");
+        page("{\"version\": \"v1\", \"has_more\": true, \"symbols\": [" + symbol("BTCUSDT") + "]}");
+        // The second page fails: there is no body
+
+        assertFalse(sync.sync());
+
+        assertEquals(Arrays.asList("BTCUSDT", "LUNAUSDT"), dao.tickers());
+        assertNull(prefs.getString("version", null));
+    }
+
+    private void page(String json) {
+        pages.add(GSON.fromJson(json, JsonElement.class));
+    }
+
+    private static String symbol(String ticker) {
+        return "{\"symbol\": \"" + ticker + "\", \"asset\": \"" + ticker.replace("USDT", "") + "\"}";
+    }
+
+    private static final class FakeCall implements Call<JsonElement> {
+        @Nullable
+        private final JsonElement body;
+
+        FakeCall(@Nullable JsonElement body) {
+            this.body = body;
+        }
+
+        @Override
+        public Response<JsonElement> execute() {
+            return Response.success(body);
+        }
+
+        @Override
+        public void enqueue(Callback<JsonElement> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return false;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public Call<JsonElement> clone() {
+            return new FakeCall(body);
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/cache/symbols").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+
+    private static final class FakeSymbolDao implements SymbolDao {
+        private final TreeMap<String, CachedSymbol> rows = new TreeMap<>();
+
+        void seed(String... tickers) {
+            for (String ticker : tickers) {
+                CachedSymbol symbol = new CachedSymbol();
+                symbol.symbol = ticker;
+                rows.put(ticker, symbol);
+            }
+        }
+
+        List<String> tickers() {
+            return new ArrayList<>(rows.keySet());
+        }
+
+        @Override
+        public void insertAll(List<CachedSymbol> symbols) {
+            for (CachedSymbol symbol : symbols) rows.put(symbol.symbol, symbol);
+        }
+
+        @Override
+        public LiveData<List<CachedSymbol>> searchSymbols(String query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<CachedSymbol> searchFts(String match, String prefix, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LiveData<List<CachedSymbol>> searchFtsLive(String match, String prefix, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<CachedSymbol> searchInfix(String pattern, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CachedSymbol getSymbolByTicker(String ticker) {
+            return rows.get(ticker);
+        }
+
+        @Override
+        public List<CachedSymbol> getSymbolsByTickersSync(List<String> tickers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public void updateQuote(String ticker, double price, double change) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateSparkline(String ticker, float[] points) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteByTickers(List<String> tickers) {
+            for (String ticker : tickers) rows.remove(ticker);
+        }
+
+        @Override
+        public long maxSyncGeneration() {
+            long max = 0;
+            for (CachedSymbol symbol : rows.values()) max = Math.max(max, symbol.syncGeneration);
+            return max;
+        }
+
+        @Override
+        public int deleteOlderGenerations(long generation, int limit) {
+            int deleted = 0;
+            Iterator<CachedSymbol> it = rows.values().iterator();
+            while (it.hasNext() && deleted < limit) {
+                if (it.next().syncGeneration < generation) {
+                    it.remove();
+                    deleted++;
+                }
+            }
+            return deleted;
+        }
+
+        @Override
+        public void insertMissing(List<CachedSymbol> symbols) {
+            for (CachedSymbol symbol : symbols) rows.putIfAbsent(symbol.symbol, symbol);
+        }
+
+        @Override
+        public void updateInfo(List<CachedSymbolInfo> info) {
+            for (CachedSymbolInfo update : info) {
+                CachedSymbol row = rows.get(update.symbol);
+                if (row == null) continue;
+                row.asset = update.asset;
+                row.pair = update.pair;
+                row.baseCurrency = update.baseCurrency;
+                row._24hVolume = update._24hVolume;
+                row.syncGeneration = update.syncGeneration;
+            }
+        }
+    }
+
+    private static final class FakePreferences implements SharedPreferences {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(values);
+        }
+
+        @Nullable
+        @Override
+        public String getString(String key, @Nullable String defValue) {
+            return values.containsKey(key) ? (String) values.get(key) : defValue;
+        }
+
+        @Nullable
+        @Override
+        public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                @Override
+                public Editor putString(String key, @Nullable String value) {
+                    values.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putStringSet(String key, @Nullable Set<String> values) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putInt(String key, int value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putLong(String key, long value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putFloat(String key, float value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putBoolean(String key, boolean value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor remove(String key) {
+                    values.remove(key);
+                    return this;
+                }
+
+                @Override
+                public Editor clear() {
+                    values.clear();
+                    return this;
+                }
+
+                @Override
+                public boolean commit() {
+                    return true;
+                }
+
+                @Override
+                public void apply() {
+                }
+            };
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package repositories;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the FTS query built from search input.
+ */
+public class SymbolRepositoryTest {
+
+    @Test
+    public void singleToken_becomesPrefixQuery() {
+        assertEquals("btc*", SymbolRepository.toFtsMatch("btc"));
+    }
+
+    @Test
+    public void tokens_areLowerCasedAndEachMadeAPrefix() {
+        assertEquals("btc* us*", SymbolRepository.toFtsMatch("BTC US"));
+    }
+
+    @Test
+    public void punctuationAndRepeatedSpaces_separateTokens() {
+        assertEquals("btc* usdt*", SymbolRepository.toFtsMatch("  btc/usdt  "));
+        assertEquals("eth* usdt*", SymbolRepository.toFtsMatch("eth--\"usdt\""));
+    }
+
+    @Test
+    public void ftsOperators_cannotBeInjected() {
+        assertEquals("btc* or* eth*", SymbolRepository.toFtsMatch("btc* OR eth"));
+        assertEquals("a* b*", SymbolRepository.toFtsMatch("a:(b)"));
+    }
+
+    @Test
+    public void nothingSearchable_isNull() {
+        assertNull(SymbolRepository.toFtsMatch(null));
+        assertNull(SymbolRepository.toFtsMatch(""));
+        assertNull(SymbolRepository.toFtsMatch("  "));
+        assertNull(SymbolRepository.toFtsMatch("*-/\""));
+    }
+}